@@ -0,0 +1,164 @@
+package com.github.htmltomd.benchmark;
+
+/**
+ * Deterministic documents used by the benchmarks. Each generator takes a size
+ * parameter so the same shapes can be measured at different scales.
+ */
+final class BenchmarkCorpus {
+
+    private static final String[] WORDS = {
+            "conversion", "markdown", "the", "of", "performance", "document", "and", "table",
+            "a", "list", "handler", "quick", "element", "to", "parser", "output", "in", "text"
+    };
+
+    private BenchmarkCorpus() {
+        // Utility class
+    }
+
+    /**
+     * Builds a document of the given kind.
+     *
+     * @param kind one of blog, table, nestedLists, code, fencedMarkdown
+     * @param size the approximate number of top-level blocks, rows or items
+     * @return the HTML
+     */
+    static String document(String kind, int size) {
+        return switch (kind) {
+            case "blog" -> blogPost(size);
+            case "table" -> table(size, 6);
+            case "nestedLists" -> nestedLists(size, 6);
+            case "code" -> codeHeavy(size);
+            case "fencedMarkdown" -> fencedMarkdown(size);
+            default -> throw new IllegalArgumentException("Unknown document kind: " + kind);
+        };
+    }
+
+    /**
+     * A CMS-style article: headings, paragraphs with inline formatting, links,
+     * images, quotes and the occasional list.
+     */
+    static String blogPost(int sections) {
+        StringBuilder html = new StringBuilder("<article><h1>Benchmark article</h1>");
+        for (int i = 0; i < sections; i++) {
+            html.append("<h2>Section ").append(i).append("</h2>");
+            for (int p = 0; p < 4; p++) {
+                html.append("<p>");
+                sentence(html, i * 7 + p, 24);
+                html.append(" <strong>");
+                sentence(html, i + p, 3);
+                html.append("</strong> and <em>");
+                sentence(html, i * 3 + p, 2);
+                html.append("</em>, see <a href=\"https://example.com/").append(i).append('/').append(p)
+                        .append("\" title=\"Link ").append(p).append("\">this link</a>.</p>\n");
+            }
+            if (i % 3 == 0) {
+                html.append("<blockquote><p>");
+                sentence(html, i, 16);
+                html.append("</p></blockquote>");
+            }
+            if (i % 4 == 1) {
+                html.append("<ul>");
+                for (int li = 0; li < 5; li++) {
+                    html.append("<li>");
+                    sentence(html, i + li, 6);
+                    html.append("</li>");
+                }
+                html.append("</ul>");
+            }
+            if (i % 5 == 2) {
+                html.append("<p><img src=\"/img/").append(i).append(".png\" alt=\"Figure ").append(i)
+                        .append("\"></p>");
+            }
+        }
+        return html.append("</article>").toString();
+    }
+
+    /**
+     * A data table with a header row.
+     */
+    static String table(int rows, int columns) {
+        StringBuilder html = new StringBuilder("<table><thead><tr>");
+        for (int c = 0; c < columns; c++) {
+            html.append("<th>Column ").append(c).append("</th>");
+        }
+        html.append("</tr></thead><tbody>");
+        for (int r = 0; r < rows; r++) {
+            html.append("<tr>");
+            for (int c = 0; c < columns; c++) {
+                html.append("<td>");
+                if (c == 0) {
+                    html.append("<strong>Row ").append(r).append("</strong>");
+                } else {
+                    html.append((r * 31 + c * 17) % 1000).append('.').append(c);
+                }
+                html.append("</td>");
+            }
+            html.append("</tr>\n");
+        }
+        return html.append("</tbody></table>").toString();
+    }
+
+    /**
+     * Lists nested {@code depth} levels deep: {@code items} top-level items, and
+     * four items in every nested list.
+     */
+    static String nestedLists(int items, int depth) {
+        StringBuilder html = new StringBuilder();
+        appendList(html, items, depth, 0);
+        return html.toString();
+    }
+
+    private static void appendList(StringBuilder html, int items, int depth, int level) {
+        html.append(level % 2 == 0 ? "<ul>" : "<ol>");
+        for (int i = 0; i < items; i++) {
+            html.append("<li>Item ").append(level).append('.').append(i).append(' ');
+            sentence(html, level + i, 5);
+            if (level + 1 < depth && i % 3 == 0) {
+                appendList(html, 4, depth, level + 1);
+            }
+            html.append("</li>");
+        }
+        html.append(level % 2 == 0 ? "</ul>" : "</ol>");
+    }
+
+    /**
+     * Developer documentation with many pre/code blocks and inline code.
+     */
+    static String codeHeavy(int snippets) {
+        StringBuilder html = new StringBuilder("<h1>API reference</h1>");
+        for (int i = 0; i < snippets; i++) {
+            html.append("<h3>method").append(i).append("()</h3><p>Call <code>method").append(i)
+                    .append("(x)</code> to compute the value.</p>");
+            html.append("<pre><code class=\"language-java\">public int method").append(i)
+                    .append("(int x) {\n    int y = x * ").append(i).append(";\n    return y &lt; 0 ? -y : y;\n}")
+                    .append("</code></pre>\n");
+        }
+        return html.toString();
+    }
+
+    /**
+     * Markdown with embedded HTML and fenced code blocks, as produced by editors
+     * that mix both.
+     */
+    static String fencedMarkdown(int blocks) {
+        StringBuilder text = new StringBuilder("# Mixed content\n\n");
+        for (int i = 0; i < blocks; i++) {
+            text.append("Paragraph ").append(i).append(" with **markdown** text.\n\n");
+            text.append("```html\n<div class=\"example\"><b>Example ").append(i).append("</b></div>\n```\n\n");
+            text.append("<p>An <em>HTML</em> paragraph number ").append(i).append(".</p>\n\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Appends {@code count} pseudo-random words.
+     */
+    static void sentence(StringBuilder out, int seed, int count) {
+        for (int w = 0; w < count; w++) {
+            if (w > 0) {
+                out.append(' ');
+            }
+            out.append(WORDS[Math.floorMod(seed * 31 + w * 7, WORDS.length)]);
+        }
+    }
+}
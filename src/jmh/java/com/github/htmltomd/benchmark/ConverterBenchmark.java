@@ -0,0 +1,58 @@
+package com.github.htmltomd.benchmark;
+
+import com.github.htmltomd.HtmlToMarkdownConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end conversion benchmarks over the benchmark corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+
+    @Param({ "blog", "table", "nestedLists", "code", "fencedMarkdown" })
+    private String kind;
+
+    @Param({ "10", "500" })
+    private int size;
+
+    private HtmlToMarkdownConverter converter;
+    private String html;
+
+    @Setup
+    public void setUp() {
+        converter = new HtmlToMarkdownConverter();
+        html = BenchmarkCorpus.document(kind, size);
+    }
+
+    @Benchmark
+    public String convert() {
+        return converter.convert(html);
+    }
+
+    @Benchmark
+    public StringWriter convertStreaming() throws IOException {
+        StringWriter out = new StringWriter(html.length());
+        converter.convert(new StringReader(html), out);
+        return out;
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.htmltomd.benchmark;
+
+import com.github.htmltomd.ConverterConfig;
+import com.github.htmltomd.HtmlToMarkdownConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of short chat/comment style fragments, with and without the fast
+ * path parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FragmentBenchmark {
+
+    @Param({ "true", "false" })
+    private boolean fastPath;
+
+    private HtmlToMarkdownConverter converter;
+
+    @Setup
+    public void setUp() {
+        converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .fastPathParsing(fastPath)
+                .build());
+    }
+
+    @Benchmark
+    public String inline() {
+        return converter.convert("<p>Hi <b>there</b>, see <a href=\"https://example.com\">this</a></p>");
+    }
+
+    @Benchmark
+    public String comment() {
+        return converter.convert("<p>Thanks for the <em>great</em> write-up &amp; the examples!</p>"
+                + "<p>One question: does <code>convert</code> keep <strong>nested</strong> formatting?<br>"
+                + "Cheers</p>");
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.htmltomd.benchmark;
+
+import com.github.htmltomd.ConverterConfig;
+import com.github.htmltomd.handler.ElementHandler;
+import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.impl.EmphasisHandler;
+import com.github.htmltomd.handler.impl.LinkHandler;
+import com.github.htmltomd.handler.impl.ListHandler;
+import com.github.htmltomd.handler.impl.ParagraphHandler;
+import com.github.htmltomd.handler.impl.TableHandler;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for individual handlers on pre-parsed elements, so that parsing
+ * is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerBenchmark {
+
+    @Param({ "10", "1000" })
+    private int size;
+
+    private HandlerContext context;
+    private final TableHandler tableHandler = new TableHandler();
+    private final ListHandler listHandler = new ListHandler();
+    private Element table;
+    private Element list;
+    private Element textHeavy;
+
+    @Setup
+    public void setUp() {
+        Map<String, ElementHandler> handlers = new HashMap<>();
+        handlers.put("table", tableHandler);
+        handlers.put("ul", listHandler);
+        handlers.put("ol", listHandler);
+        handlers.put("li", listHandler);
+        handlers.put("p", new ParagraphHandler());
+        handlers.put("a", new LinkHandler());
+        handlers.put("strong", new EmphasisHandler());
+        handlers.put("em", new EmphasisHandler());
+        context = new HandlerContext(ConverterConfig.defaultConfig(), handlers);
+
+        table = Jsoup.parse(BenchmarkCorpus.table(size, 6)).body().child(0);
+        list = Jsoup.parse(BenchmarkCorpus.nestedLists(size, 6)).body().child(0);
+
+        // Many whitespace-heavy text nodes, exercising text normalization
+        StringBuilder div = new StringBuilder("<div>");
+        for (int i = 0; i < size; i++) {
+            div.append("\n    <span>  ");
+            BenchmarkCorpus.sentence(div, i, 6);
+            div.append("   </span>   text   between   spans  ");
+        }
+        textHeavy = Jsoup.parse(div.append("</div>").toString()).body().child(0);
+    }
+
+    @Benchmark
+    public String table() {
+        return tableHandler.handle(table, context);
+    }
+
+    @Benchmark
+    public String nestedList() {
+        return listHandler.handle(list, context);
+    }
+
+    @Benchmark
+    public String textNormalization() {
+        return context.processChildren(textHeavy);
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.htmltomd.benchmark;
+
+import com.github.htmltomd.util.MarkdownUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks for {@link MarkdownUtils}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownUtilsBenchmark {
+
+    /**
+     * plain: no character needs escaping; special: Markdown syntax throughout.
+     */
+    @Param({ "plain", "special" })
+    private String text;
+
+    private String input;
+    private String whitespace;
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            if (text.equals("plain")) {
+                BenchmarkCorpus.sentence(sb, i, 8);
+            } else {
+                sb.append("**bold** [link](http://x.y/z_1) #tag a-b 1. (c) `code` |cell| ");
+            }
+            sb.append(' ');
+        }
+        input = sb.toString();
+        whitespace = input.replace(" ", "  \t\n ");
+    }
+
+    @Benchmark
+    public String escape() {
+        return MarkdownUtils.escape(input);
+    }
+
+    @Benchmark
+    public StringBuilder escapeToBuffer() {
+        buffer.setLength(0);
+        MarkdownUtils.escape(input, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public String normalizeWhitespace() {
+        return MarkdownUtils.normalizeWhitespace(whitespace);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.htmltomd;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Converts a sequence of documents in parallel, yielding the results in input
+ * order.
+ * <p>
+ * At most {@code maxConcurrency} documents are submitted ahead of the result
+ * being consumed; the input is only read further as results are taken, so a
+ * slow consumer holds back the producer instead of buffering unboundedly.
+ */
+final class BatchConversion implements Iterator<ConversionResult> {
+
+    private final Iterator<String> input;
+    private final Function<String, String> converter;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final ArrayDeque<CompletableFuture<ConversionResult>> inFlight = new ArrayDeque<>();
+    private int nextIndex = 0;
+
+    BatchConversion(Iterator<String> input, Function<String, String> converter, Executor executor,
+            int maxConcurrency) {
+        this.input = input;
+        this.converter = converter;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !inFlight.isEmpty();
+    }
+
+    @Override
+    public ConversionResult next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ConversionResult result = inFlight.removeFirst().join();
+        // Keep the pipeline full while the caller handles this result
+        fill();
+        return result;
+    }
+
+    private void fill() {
+        while (inFlight.size() < maxConcurrency && input.hasNext()) {
+            int index = nextIndex++;
+            String html = input.next();
+            inFlight.addLast(CompletableFuture.supplyAsync(() -> convert(index, html), executor));
+        }
+    }
+
+    private ConversionResult convert(int index, String html) {
+        try {
+            return ConversionResult.success(index, converter.apply(html));
+        } catch (RuntimeException e) {
+            return ConversionResult.failure(index, e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.htmltomd;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of conversion results, bounded by the memory held by its entries.
+ * <p>
+ * Entries are keyed by the input HTML and a fingerprint of the configuration
+ * (handlers, post-processors and preserved/removed tags), so one cache can be
+ * shared by converters with different configurations and a converter never
+ * sees results produced under another configuration. Lookups compare the full
+ * input, so hash collisions can't return a wrong result.
+ * <p>
+ * The least recently used entries are evicted once the estimated size of all
+ * entries exceeds the limit. The cache is thread-safe.
+ *
+ * @see ConverterConfig.Builder#cache(ConversionCache)
+ * @see ConverterConfig.Builder#fragmentCache(ConversionCache)
+ */
+public final class ConversionCache {
+
+    // Rough per-entry cost of the key, entry and map node objects
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, String> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a cache holding at most about {@code maxBytes} of input and output.
+     *
+     * @param maxBytes the maximum estimated size of all entries in bytes
+     */
+    public ConversionCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets a cached result.
+     *
+     * @param fingerprint the configuration fingerprint, see
+     *                    {@link ConverterConfig#getFingerprint()}
+     * @param html        the input
+     * @return the Markdown, or null if not cached
+     */
+    public String get(Object fingerprint, String html) {
+        Key key = new Key(fingerprint, html);
+        synchronized (this) {
+            String markdown = entries.get(key);
+            if (markdown != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return markdown;
+        }
+    }
+
+    /**
+     * Caches a result, evicting least recently used entries as needed. Results
+     * that alone exceed the size limit are not cached.
+     *
+     * @param fingerprint the configuration fingerprint, see
+     *                    {@link ConverterConfig#getFingerprint()}
+     * @param html        the input
+     * @param markdown    the converted Markdown
+     */
+    public void put(Object fingerprint, String html, String markdown) {
+        long size = sizeOf(html, markdown);
+        if (size > maxBytes) {
+            return;
+        }
+        Key key = new Key(fingerprint, html);
+        synchronized (this) {
+            String previous = entries.put(key, markdown);
+            if (previous != null) {
+                bytes -= sizeOf(html, previous);
+            }
+            bytes += size;
+
+            Iterator<Map.Entry<Key, String>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes) {
+                Map.Entry<Key, String> entry = eldest.next();
+                bytes -= sizeOf(entry.getKey().html, entry.getValue());
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Removes the results for the given input under all configurations.
+     *
+     * @param html the input
+     */
+    public synchronized void invalidate(String html) {
+        Iterator<Map.Entry<Key, String>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, String> entry = it.next();
+            if (entry.getKey().html.equals(html)) {
+                bytes -= sizeOf(html, entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all entries. Statistics are kept.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Gets a snapshot of the cache statistics.
+     *
+     * @return the current statistics
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), bytes);
+    }
+
+    private static long sizeOf(String html, String markdown) {
+        return ENTRY_OVERHEAD + 2L * (html.length() + markdown.length());
+    }
+
+    private static final class Key {
+        private final Object fingerprint;
+        private final String html;
+        private final int hash;
+
+        Key(Object fingerprint, String html) {
+            this.fingerprint = fingerprint;
+            this.html = html;
+            this.hash = 31 * fingerprint.hashCode() + html.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return hash == other.hash && html.equals(other.html) && fingerprint.equals(other.fingerprint);
+        }
+    }
+
+    /**
+     * Cache statistics.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final long bytes;
+
+        Stats(long hits, long misses, long evictions, int size, long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Gets the number of lookups that found a cached result.
+         *
+         * @return the hit count
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Gets the number of lookups that found no cached result.
+         *
+         * @return the miss count
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Gets the number of entries evicted to stay within the size limit.
+         *
+         * @return the eviction count
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Gets the number of cached results.
+         *
+         * @return the entry count
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the estimated memory held by all entries.
+         *
+         * @return the size in bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets the fraction of lookups that were hits.
+         *
+         * @return the hit rate between 0 and 1, or 0 if there were no lookups
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                    + ", size=" + size + ", bytes=" + bytes + "}";
+        }
+    }
+}
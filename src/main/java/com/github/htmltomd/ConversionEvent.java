@@ -0,0 +1,38 @@
+package com.github.htmltomd;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a conversion. Only conversions taking longer than
+ * the threshold are recorded; it can be changed in the recording settings.
+ */
+@Name("com.github.htmltomd.Conversion")
+@Label("HTML to Markdown Conversion")
+@Category("HTML to Markdown")
+@Description("A conversion of an HTML document to Markdown")
+@Threshold("20 ms")
+final class ConversionEvent extends jdk.jfr.Event {
+
+    @Label("Streaming")
+    @Description("Whether the document was converted from a Reader")
+    boolean streaming;
+
+    @Label("Cached")
+    @Description("Whether the result was served from the conversion cache")
+    boolean cached;
+
+    @Label("Input Length")
+    @Description("Number of characters of HTML")
+    @DataAmount(DataAmount.BYTES)
+    long inputLength;
+
+    @Label("Output Length")
+    @Description("Number of characters of Markdown")
+    @DataAmount(DataAmount.BYTES)
+    long outputLength;
+}
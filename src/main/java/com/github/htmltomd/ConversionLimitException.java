@@ -0,0 +1,43 @@
+package com.github.htmltomd;
+
+/**
+ * Thrown when a conversion exceeds one of the limits set in
+ * {@link ConverterConfig} and the {@link LimitPolicy} is
+ * {@link LimitPolicy#THROW}, or when the converting thread is interrupted.
+ */
+public class ConversionLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The limits of a conversion.
+     */
+    public enum Limit {
+        /** The length of the HTML input. */
+        INPUT_LENGTH,
+        /** The nesting depth of elements. */
+        DEPTH,
+        /** The number of elements rendered. */
+        ELEMENTS,
+        /** The length of the Markdown output. */
+        OUTPUT_LENGTH,
+        /** The time allowed for the conversion, or the thread was interrupted. */
+        TIME
+    }
+
+    private final Limit limit;
+
+    public ConversionLimitException(Limit limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the limit that was exceeded.
+     * 
+     * @return the limit
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.htmltomd;
+
+/**
+ * Receives metrics for each conversion, e.g. to export them to a monitoring
+ * system or to find slow pages and handlers.
+ * <p>
+ * The listener is called once per conversion, on the thread that ran it, after
+ * the output has been produced. It may be called from several threads at once.
+ * Collecting metrics costs a few timer reads per element, so the listener is
+ * best enabled where the numbers are needed; without a listener nothing is
+ * measured.
+ *
+ * @see ConverterConfig.Builder#listener(ConversionListener)
+ */
+@FunctionalInterface
+public interface ConversionListener {
+
+    /**
+     * Called when a conversion has completed.
+     * 
+     * @param metrics the metrics of the conversion
+     */
+    void onConversion(ConversionMetrics metrics);
+}
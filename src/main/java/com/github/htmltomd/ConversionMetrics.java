@@ -0,0 +1,148 @@
+package com.github.htmltomd;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Metrics of a single conversion, see {@link ConversionListener}.
+ */
+public final class ConversionMetrics {
+
+    /**
+     * The phases of a conversion.
+     */
+    public enum Phase {
+        /** Replacing fenced code blocks with sentinels. */
+        PROTECT,
+        /** Parsing the HTML. */
+        PARSE,
+        /** Walking the document and running the handlers. */
+        RENDER,
+        /**
+         * Restoring code blocks, the built-in cleanup (including merging of
+         * headings) and the configured post-processors, which run as a single
+         * pass.
+         */
+        POST_PROCESS
+    }
+
+    /**
+     * Rendering statistics of one tag.
+     */
+    public static final class TagStats {
+        private final long count;
+        private final long selfNanos;
+
+        TagStats(long count, long selfNanos) {
+            this.count = count;
+            this.selfNanos = selfNanos;
+        }
+
+        /**
+         * Gets the number of elements with this tag.
+         * 
+         * @return the element count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the cumulative time spent rendering elements with this tag,
+         * excluding time spent in their child elements.
+         * 
+         * @return the time in nanoseconds
+         */
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "TagStats{count=" + count + ", selfNanos=" + selfNanos + "}";
+        }
+    }
+
+    private final boolean streaming;
+    private final long inputLength;
+    private final long outputLength;
+    private final long totalNanos;
+    private final Map<Phase, Long> phaseNanos;
+    private final Map<String, TagStats> tags;
+
+    ConversionMetrics(boolean streaming, long inputLength, long outputLength, long totalNanos,
+            EnumMap<Phase, Long> phaseNanos, Map<String, TagStats> tags) {
+        this.streaming = streaming;
+        this.inputLength = inputLength;
+        this.outputLength = outputLength;
+        this.totalNanos = totalNanos;
+        this.phaseNanos = Collections.unmodifiableMap(phaseNanos);
+        this.tags = Collections.unmodifiableMap(tags);
+    }
+
+    /**
+     * Checks if this was a streaming conversion. Streaming conversions parse
+     * and render block by block; their {@link Phase#PARSE} time includes code
+     * block protection and reading the input.
+     * 
+     * @return true for {@code convert(Reader, Writer)}
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Gets the length of the input.
+     * 
+     * @return the number of input characters
+     */
+    public long getInputLength() {
+        return inputLength;
+    }
+
+    /**
+     * Gets the length of the output.
+     * 
+     * @return the number of Markdown characters produced
+     */
+    public long getOutputLength() {
+        return outputLength;
+    }
+
+    /**
+     * Gets the duration of the whole conversion.
+     * 
+     * @return the time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Gets the time spent in a phase.
+     * 
+     * @param phase the phase
+     * @return the time in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * Gets rendering statistics per tag, for every tag that was rendered.
+     * Elements of preserved and removed tags are not included.
+     * 
+     * @return unmodifiable map from lower case tag name to its statistics
+     */
+    public Map<String, TagStats> getTags() {
+        return tags;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionMetrics{streaming=" + streaming + ", inputLength=" + inputLength
+                + ", outputLength=" + outputLength + ", totalNanos=" + totalNanos
+                + ", phaseNanos=" + phaseNanos + ", tags=" + tags + "}";
+    }
+}
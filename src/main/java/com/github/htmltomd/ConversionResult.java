@@ -0,0 +1,72 @@
+package com.github.htmltomd;
+
+/**
+ * The outcome of converting one document of a batch, see
+ * {@link HtmlToMarkdownConverter#convertAll(java.util.List)}.
+ * <p>
+ * A failed conversion doesn't fail the batch; the error is captured here
+ * instead.
+ */
+public final class ConversionResult {
+
+    private final int index;
+    private final String markdown;
+    private final RuntimeException error;
+
+    private ConversionResult(int index, String markdown, RuntimeException error) {
+        this.index = index;
+        this.markdown = markdown;
+        this.error = error;
+    }
+
+    static ConversionResult success(int index, String markdown) {
+        return new ConversionResult(index, markdown, null);
+    }
+
+    static ConversionResult failure(int index, RuntimeException error) {
+        return new ConversionResult(index, null, error);
+    }
+
+    /**
+     * Gets the position of the document in the batch.
+     * 
+     * @return the zero-based index of the input document
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Checks if the document was converted.
+     * 
+     * @return true if the conversion succeeded
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Gets the converted Markdown.
+     * 
+     * @return the Markdown, or null if the conversion failed
+     */
+    public String getMarkdown() {
+        return markdown;
+    }
+
+    /**
+     * Gets the error that made the conversion fail.
+     * 
+     * @return the error, or null if the conversion succeeded
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess()
+                ? "ConversionResult{index=" + index + ", markdown=" + markdown.length() + " chars}"
+                : "ConversionResult{index=" + index + ", error=" + error + "}";
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.htmltomd;
+
+import com.github.htmltomd.handler.DispatchTable;
+import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+
+/**
+ * Mutable per-conversion state: the handler context and the buffers a
+ * conversion renders into.
+ * <p>
+ * Each thread keeps one instance per converter and reuses it for every
+ * conversion it runs, so steady-state conversions only allocate their result.
+ * An instance is never used by two conversions at the same time.
+ */
+final class ConversionState {
+
+    /**
+     * Buffers that grew beyond this many characters are not kept for the next
+     * conversion, so one huge document doesn't pin its memory to the thread.
+     */
+    static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    final HandlerContext context;
+    final MarkdownWriter markdown = new MarkdownWriter(4096);
+    final StringBuilder output = new StringBuilder(4096);
+    private boolean inUse = false;
+
+    ConversionState(ConverterConfig config, DispatchTable dispatch) {
+        this.context = new HandlerContext(config, dispatch);
+    }
+
+    /**
+     * Marks this state as used by a conversion.
+     *
+     * @return false if a conversion on this thread already uses it, e.g. when a
+     *         handler converts a nested document with the same converter
+     */
+    boolean acquire() {
+        if (inUse) {
+            return false;
+        }
+        inUse = true;
+        return true;
+    }
+
+    /**
+     * Resets the state after a conversion.
+     *
+     * @return true if the buffers are small enough to be kept for reuse
+     */
+    boolean release() {
+        inUse = false;
+        context.reset();
+        context.setObserver(null);
+        context.setBudget(null);
+        markdown.reset();
+        output.setLength(0);
+        return markdown.capacity() <= MAX_RETAINED_CAPACITY && output.capacity() <= MAX_RETAINED_CAPACITY;
+    }
+}
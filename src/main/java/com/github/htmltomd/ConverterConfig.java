@@ -2,24 +2,106 @@ package com.github.htmltomd;
 
 import com.github.htmltomd.handler.ElementHandler;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Configuration for HTML to Markdown conversion.
+ * <p>
+ * Instances are immutable: all collections are copied into unmodifiable
+ * collections when the configuration is built, so a configuration can be shared
+ * freely between threads and converters. Handlers and post-processors are
+ * stored as given and must themselves be safe to use from several threads.
  */
-public class ConverterConfig {
+public final class ConverterConfig {
+
+    /**
+     * Tags removed by default, see {@link Builder#removeDefaultTags(boolean)}:
+     * scripts, style sheets, fallback content and graphics, whose content is
+     * not part of the text.
+     */
+    public static final Set<String> DEFAULT_REMOVE_TAGS = Set.of(
+            "script", "style", "noscript", "template", "svg", "canvas", "iframe");
 
     private final Map<String, ElementHandler> customHandlers;
     private final Set<String> preserveTags;
     private final Set<String> removeTags;
+    private final List<PostProcessor> postProcessors;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final int parallelChunkSize;
+    private final ConversionCache cache;
+    private final ConversionCache fragmentCache;
+    private final int minFragmentNodes;
+    private final int maxFragmentNodes;
+    private final boolean fastPathParsing;
+    private final boolean alignTables;
+    private final int streamingTableRows;
+    private final TableOverflow tableOverflow;
+    private final boolean skipHiddenElements;
+    private final boolean extractMainContent;
+    private final ConversionListener listener;
+    private final int maxInputLength;
+    private final int maxDepth;
+    private final int maxElements;
+    private final int maxOutputLength;
+    private final Duration timeout;
+    private final LimitPolicy limitPolicy;
+    private final Object fingerprint;
 
     private ConverterConfig(Builder builder) {
-        this.customHandlers = new HashMap<>(builder.customHandlers);
-        this.preserveTags = new HashSet<>(builder.preserveTags);
-        this.removeTags = new HashSet<>(builder.removeTags);
+        this.customHandlers = Map.copyOf(builder.customHandlers);
+        this.preserveTags = Set.copyOf(builder.preserveTags);
+        this.removeTags = removeTags(builder);
+        this.postProcessors = List.copyOf(builder.postProcessors);
+        this.executor = builder.executor;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.parallelChunkSize = builder.parallelChunkSize;
+        this.cache = builder.cache;
+        this.fragmentCache = builder.fragmentCache;
+        this.minFragmentNodes = builder.minFragmentNodes;
+        this.maxFragmentNodes = builder.maxFragmentNodes;
+        this.fastPathParsing = builder.fastPathParsing;
+        this.alignTables = builder.alignTables;
+        this.streamingTableRows = builder.streamingTableRows;
+        this.tableOverflow = builder.tableOverflow;
+        this.skipHiddenElements = builder.skipHiddenElements;
+        this.extractMainContent = builder.extractMainContent;
+        this.listener = builder.listener;
+        this.maxInputLength = builder.maxInputLength;
+        this.maxDepth = builder.maxDepth;
+        this.maxElements = builder.maxElements;
+        this.maxOutputLength = builder.maxOutputLength;
+        this.timeout = builder.timeout;
+        this.limitPolicy = builder.limitPolicy;
+        // Everything that affects the output; handlers compare by identity. The
+        // time limit is left out: results are only cached when completed.
+        this.fingerprint = List.of(customHandlers, preserveTags, removeTags, postProcessors,
+                List.of(alignTables, streamingTableRows, tableOverflow, skipHiddenElements, extractMainContent),
+                List.of(maxInputLength, maxDepth, maxElements, maxOutputLength, limitPolicy));
+    }
+
+    private static Set<String> removeTags(Builder builder) {
+        if (!builder.removeDefaultTags) {
+            return Set.copyOf(builder.removeTags);
+        }
+        Set<String> tags = new HashSet<>(builder.removeTags);
+        for (String tag : DEFAULT_REMOVE_TAGS) {
+            // Tags the caller handles or preserves are not removed by default
+            if (!builder.customHandlers.containsKey(tag) && !builder.preserveTags.contains(tag)) {
+                tags.add(tag);
+            }
+        }
+        return Set.copyOf(tags);
     }
 
     /**
@@ -35,10 +117,10 @@ public class ConverterConfig {
     /**
      * Gets all custom handlers.
      * 
-     * @return map of all custom handlers
+     * @return unmodifiable map of all custom handlers
      */
     public Map<String, ElementHandler> getCustomHandlers() {
-        return new HashMap<>(customHandlers);
+        return customHandlers;
     }
 
     /**
@@ -61,6 +143,234 @@ public class ConverterConfig {
         return removeTags.contains(tag.toLowerCase());
     }
 
+    /**
+     * Gets the tags that are preserved as HTML.
+     * 
+     * @return unmodifiable set of lower case tag names
+     */
+    public Set<String> getPreserveTags() {
+        return preserveTags;
+    }
+
+    /**
+     * Gets the tags that are removed completely, including
+     * {@link #DEFAULT_REMOVE_TAGS} unless disabled. Tags that are also
+     * preserved are preserved.
+     * 
+     * @return unmodifiable set of lower case tag names
+     */
+    public Set<String> getRemoveTags() {
+        return removeTags;
+    }
+
+    /**
+     * Gets the post-processing stages that run after the built-in cleanup.
+     * 
+     * @return unmodifiable list of post-processors, in order
+     */
+    public List<PostProcessor> getPostProcessors() {
+        return postProcessors;
+    }
+
+    /**
+     * Gets the executor used for batch and asynchronous conversions.
+     * 
+     * @return the configured executor, or the default executor (virtual threads
+     *         on Java 21+, the common fork-join pool otherwise)
+     */
+    public Executor getExecutor() {
+        return executor != null ? executor : DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Gets the maximum number of documents a batch conversion converts at the
+     * same time.
+     * 
+     * @return the maximum number of conversions in flight
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Gets the number of top-level blocks per chunk when a single document is
+     * converted in parallel.
+     * 
+     * @return the chunk size, or 0 if documents are converted sequentially
+     */
+    public int getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    /**
+     * Gets the cache for conversion results.
+     * 
+     * @return the cache, or null if results are not cached
+     */
+    public ConversionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the cache for the Markdown of repeated subtrees.
+     * 
+     * @return the fragment cache, or null if fragments are not cached
+     */
+    public ConversionCache getFragmentCache() {
+        return fragmentCache;
+    }
+
+    /**
+     * Gets the minimum number of nodes in a subtree for its Markdown to be
+     * cached in the fragment cache.
+     * 
+     * @return the minimum subtree size
+     */
+    public int getMinFragmentNodes() {
+        return minFragmentNodes;
+    }
+
+    /**
+     * Gets the maximum number of nodes in a subtree for its Markdown to be
+     * cached in the fragment cache.
+     * 
+     * @return the maximum subtree size
+     */
+    public int getMaxFragmentNodes() {
+        return maxFragmentNodes;
+    }
+
+    /**
+     * Checks if simple fragments are parsed without building a full Jsoup
+     * document.
+     * 
+     * @return true if the fast path parser is enabled
+     */
+    public boolean isFastPathParsing() {
+        return fastPathParsing;
+    }
+
+    /**
+     * Checks if table columns are padded to the same width and marked with
+     * their alignment.
+     * 
+     * @return true if tables are aligned
+     */
+    public boolean isAlignTables() {
+        return alignTables;
+    }
+
+    /**
+     * Gets the number of rows after which tables are written row by row.
+     * 
+     * @return the number of rows, or 0 if tables are always buffered
+     */
+    public int getStreamingTableRows() {
+        return streamingTableRows;
+    }
+
+    /**
+     * Gets what streamed tables do with rows that have more cells than the
+     * column count.
+     * 
+     * @return the overflow policy
+     */
+    public TableOverflow getTableOverflow() {
+        return tableOverflow;
+    }
+
+    /**
+     * Checks if elements styled {@code display: none} are left out.
+     * 
+     * @return true if hidden elements are skipped
+     */
+    public boolean isSkipHiddenElements() {
+        return skipHiddenElements;
+    }
+
+    /**
+     * Checks if only the main content of a page is converted.
+     * 
+     * @return true if the main content is extracted
+     */
+    public boolean isExtractMainContent() {
+        return extractMainContent;
+    }
+
+    /**
+     * Gets the listener notified with the metrics of every conversion.
+     * 
+     * @return the listener, or null if metrics are not collected
+     */
+    public ConversionListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Gets the maximum length of the HTML input.
+     * 
+     * @return the maximum number of characters, or 0 for no limit
+     */
+    public int getMaxInputLength() {
+        return maxInputLength;
+    }
+
+    /**
+     * Gets the maximum nesting depth of rendered elements.
+     * 
+     * @return the maximum depth, or 0 for no limit
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the maximum number of elements rendered per conversion.
+     * 
+     * @return the maximum element count, or 0 for no limit
+     */
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * Gets the maximum length of the Markdown output.
+     * 
+     * @return the maximum number of characters, or 0 for no limit
+     */
+    public int getMaxOutputLength() {
+        return maxOutputLength;
+    }
+
+    /**
+     * Gets the time allowed for a conversion.
+     * 
+     * @return the timeout, or null for no limit
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets what a conversion does when it exceeds a limit.
+     * 
+     * @return the limit policy
+     */
+    public LimitPolicy getLimitPolicy() {
+        return limitPolicy;
+    }
+
+    /**
+     * Gets a value that is equal for configurations producing the same output,
+     * used to key cached results. Handlers and post-processors are compared by
+     * identity.
+     * 
+     * @return the configuration fingerprint
+     */
+    public Object getFingerprint() {
+        return fingerprint;
+    }
+
     /**
      * Creates a new default configuration.
      * 
@@ -86,6 +396,28 @@ public class ConverterConfig {
         private final Map<String, ElementHandler> customHandlers = new HashMap<>();
         private final Set<String> preserveTags = new HashSet<>();
         private final Set<String> removeTags = new HashSet<>();
+        private boolean removeDefaultTags = true;
+        private final List<PostProcessor> postProcessors = new ArrayList<>();
+        private Executor executor;
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors() * 2;
+        private int parallelChunkSize = 0;
+        private ConversionCache cache;
+        private ConversionCache fragmentCache;
+        private int minFragmentNodes = 16;
+        private int maxFragmentNodes = 1024;
+        private boolean fastPathParsing = true;
+        private boolean alignTables = false;
+        private int streamingTableRows = 0;
+        private TableOverflow tableOverflow = TableOverflow.MERGE;
+        private boolean skipHiddenElements = false;
+        private boolean extractMainContent = false;
+        private ConversionListener listener;
+        private int maxInputLength = 0;
+        private int maxDepth = 0;
+        private int maxElements = 0;
+        private int maxOutputLength = 0;
+        private Duration timeout;
+        private LimitPolicy limitPolicy = LimitPolicy.THROW;
 
         /**
          * Adds a custom handler for a specific tag.
@@ -121,6 +453,367 @@ public class ConverterConfig {
             return this;
         }
 
+        /**
+         * Enables or disables removing the {@link #DEFAULT_REMOVE_TAGS}, such
+         * as {@code script}, {@code noscript} and {@code svg}, together with
+         * their content. Tags with a custom handler or preserved as HTML are
+         * kept. Enabled by default.
+         * <p>
+         * Removed tags are dropped before the HTML is parsed where their end
+         * can be found without parsing, so their content is never turned into
+         * nodes; otherwise they are skipped while rendering.
+         * 
+         * @param removeDefaultTags true to remove the default tags
+         * @return this builder
+         */
+        public Builder removeDefaultTags(boolean removeDefaultTags) {
+            this.removeDefaultTags = removeDefaultTags;
+            return this;
+        }
+
+        /**
+         * Adds a post-processing stage that runs after the built-in cleanup.
+         * 
+         * @param postProcessor the post-processor
+         * @return this builder
+         */
+        public Builder addPostProcessor(PostProcessor postProcessor) {
+            postProcessors.add(postProcessor);
+            return this;
+        }
+
+        /**
+         * Sets the executor used for batch and asynchronous conversions.
+         * 
+         * @param executor the executor, or null for the default
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of documents a batch conversion converts at
+         * the same time. Further input is only read once earlier documents are
+         * done, which bounds the memory held by a batch.
+         * 
+         * @param maxConcurrency the maximum number of conversions in flight
+         * @return this builder
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be at least 1: " + maxConcurrency);
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Enables parallel conversion of large documents. The top-level blocks
+         * of the body are split into chunks of {@code chunkSize} blocks that are
+         * converted on the common fork-join pool and joined in order, so a
+         * document with more than {@code chunkSize} top-level blocks uses
+         * several cores. The output is the same as a sequential conversion;
+         * handlers must be thread-safe. Only {@code convert(String)} is
+         * affected, and it converts sequentially while a depth, element, time
+         * or output length limit is set, so that it stops at the same block.
+         * 
+         * @param chunkSize the number of top-level blocks per chunk, or 0 to
+         *                  disable parallel conversion (the default)
+         * @return this builder
+         */
+        public Builder parallelChunkSize(int chunkSize) {
+            if (chunkSize < 0) {
+                throw new IllegalArgumentException("chunkSize must not be negative: " + chunkSize);
+            }
+            this.parallelChunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets a cache for the results of {@code convert(String)}. A cache can
+         * be shared between converters; results are kept apart by
+         * configuration.
+         * 
+         * @param cache the cache, or null to disable caching
+         * @return this builder
+         */
+        public Builder cache(ConversionCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets a cache for the Markdown of repeated subtrees such as navigation
+         * menus, footers and signatures. A subtree is cached by its HTML when
+         * every element in it is handled by a cacheable handler (see
+         * {@link ElementHandler#isCacheable()}) and it has at least
+         * {@link #minFragmentNodes(int)} and at most
+         * {@link #maxFragmentNodes(int)} nodes. When a subtree is not found,
+         * the subtrees within it are looked up in turn, so a navigation menu
+         * is found even on pages wrapped in a single element. Fragments are
+         * not cached while a depth, element, time or output length limit is
+         * set, as those make the output of a subtree depend on where and when
+         * it is rendered. The cache can be
+         * shared between converters and with {@link #cache(ConversionCache)}.
+         * 
+         * @param fragmentCache the cache, or null to disable fragment caching
+         * @return this builder
+         */
+        public Builder fragmentCache(ConversionCache fragmentCache) {
+            this.fragmentCache = fragmentCache;
+            return this;
+        }
+
+        /**
+         * Sets the minimum number of nodes (elements and text) in a subtree for
+         * it to be cached in the fragment cache. Smaller subtrees are cheaper to
+         * convert than to look up. Defaults to 16.
+         * 
+         * @param minFragmentNodes the minimum subtree size
+         * @return this builder
+         */
+        public Builder minFragmentNodes(int minFragmentNodes) {
+            if (minFragmentNodes < 1) {
+                throw new IllegalArgumentException("minFragmentNodes must be at least 1: " + minFragmentNodes);
+            }
+            this.minFragmentNodes = minFragmentNodes;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of nodes (elements and text) in a subtree for
+         * it to be cached in the fragment cache. Larger subtrees, such as an
+         * element wrapping the whole page, rarely repeat, so they are not
+         * looked up and only the subtrees within them are. Defaults to 1024.
+         * 
+         * @param maxFragmentNodes the maximum subtree size
+         * @return this builder
+         */
+        public Builder maxFragmentNodes(int maxFragmentNodes) {
+            if (maxFragmentNodes < 1) {
+                throw new IllegalArgumentException("maxFragmentNodes must be at least 1: " + maxFragmentNodes);
+            }
+            this.maxFragmentNodes = maxFragmentNodes;
+            return this;
+        }
+
+        /**
+         * Enables or disables the fast path for simple fragments. Well-formed
+         * input made of paragraphs, headings, inline formatting, links, images
+         * and line breaks is parsed by a lightweight parser that produces the
+         * same nodes as Jsoup without building a full document; other input
+         * always goes through Jsoup. Enabled by default.
+         * 
+         * @param fastPathParsing true to enable the fast path
+         * @return this builder
+         */
+        public Builder fastPathParsing(boolean fastPathParsing) {
+            this.fastPathParsing = fastPathParsing;
+            return this;
+        }
+
+        /**
+         * Enables or disables aligned tables. When enabled, the cells of each
+         * column are padded to the same width, and the separator row marks the
+         * alignment of the column (<code>:---</code>, <code>:---:</code> or
+         * <code>---:</code>) taken from the {@code align} attribute or
+         * {@code text-align} style of its first cell that has one. Disabled by
+         * default.
+         * 
+         * @param alignTables true to align tables
+         * @return this builder
+         */
+        public Builder alignTables(boolean alignTables) {
+            this.alignTables = alignTables;
+            return this;
+        }
+
+        /**
+         * Writes tables with many rows row by row. A table normally keeps all
+         * its cells until its end to find its widest row. Once a table has
+         * more than {@code rows} rows, its column count (and the column widths
+         * of aligned tables) are fixed from the rows so far, and each
+         * following row is written to the Markdown as soon as it is rendered,
+         * so the cells of earlier rows are not kept. The table itself is still
+         * parsed whole, and {@code convert(Reader, Writer)} only writes its
+         * rows out once it is complete. Rows with more cells are handled as
+         * set by {@link #tableOverflow}. 0 (the default) buffers all tables.
+         * 
+         * @param rows the number of rows to look at, including the header
+         * @return this builder
+         */
+        public Builder streamingTables(int rows) {
+            if (rows < 0) {
+                throw new IllegalArgumentException("rows must not be negative: " + rows);
+            }
+            this.streamingTableRows = rows;
+            return this;
+        }
+
+        /**
+         * Sets what streamed tables do with rows that have more cells than the
+         * column count. Default is {@link TableOverflow#MERGE}.
+         * 
+         * @param tableOverflow the overflow policy
+         * @return this builder
+         */
+        public Builder tableOverflow(TableOverflow tableOverflow) {
+            if (tableOverflow == null) {
+                throw new IllegalArgumentException("tableOverflow must not be null");
+            }
+            this.tableOverflow = tableOverflow;
+            return this;
+        }
+
+        /**
+         * Leaves out elements whose inline style sets {@code display: none},
+         * together with their content, as browsers do not show them. Only
+         * the {@code style} attribute is looked at, not style sheets. Tags
+         * set to be preserved are kept even if hidden. Disabled by default.
+         * 
+         * @param skipHiddenElements true to skip hidden elements
+         * @return this builder
+         */
+        public Builder skipHiddenElements(boolean skipHiddenElements) {
+            this.skipHiddenElements = skipHiddenElements;
+            return this;
+        }
+
+        /**
+         * Converts only the main content of a page, such as the article of a
+         * blog post, leaving out navigation, sidebars, ads and comments. The
+         * content is found by scoring block elements by the length of their
+         * text and the share of it in links, before any of the page is
+         * converted. Pages without a paragraph of some length are converted
+         * whole. Not used by streaming conversion, which writes blocks out
+         * before the page is complete. Disabled by default.
+         * 
+         * @param extractMainContent true to convert only the main content
+         * @return this builder
+         */
+        public Builder extractMainContent(boolean extractMainContent) {
+            this.extractMainContent = extractMainContent;
+            return this;
+        }
+
+        /**
+         * Sets a listener that receives the metrics of every conversion: time
+         * per phase, input and output size, and per-tag element counts and
+         * render time. Metrics are only collected when a listener is set. The
+         * listener is called on the converting thread and should return quickly.
+         * Results served from the cache are not reported.
+         * 
+         * @param listener the listener, or null for none
+         * @return this builder
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Limits the length of the HTML input. Longer input is rejected or,
+         * with {@link LimitPolicy#TRUNCATE}, cut off at the limit before
+         * parsing.
+         * 
+         * @param maxInputLength the maximum number of characters, or 0 for no
+         *                       limit (the default)
+         * @return this builder
+         */
+        public Builder maxInputLength(int maxInputLength) {
+            if (maxInputLength < 0) {
+                throw new IllegalArgumentException("maxInputLength must not be negative: " + maxInputLength);
+            }
+            this.maxInputLength = maxInputLength;
+            return this;
+        }
+
+        /**
+         * Limits the nesting depth of rendered elements, which bounds the stack
+         * used by the handlers. Deeper elements are rejected or, with
+         * {@link LimitPolicy#TRUNCATE}, flattened to their text.
+         * 
+         * @param maxDepth the maximum depth, or 0 for no limit (the default)
+         * @return this builder
+         */
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth < 0) {
+                throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * Limits the number of elements rendered per conversion. Further
+         * elements are rejected or, with {@link LimitPolicy#TRUNCATE}, skipped.
+         * 
+         * @param maxElements the maximum element count, or 0 for no limit (the
+         *                    default)
+         * @return this builder
+         */
+        public Builder maxElements(int maxElements) {
+            if (maxElements < 0) {
+                throw new IllegalArgumentException("maxElements must not be negative: " + maxElements);
+            }
+            this.maxElements = maxElements;
+            return this;
+        }
+
+        /**
+         * Limits the length of the Markdown output. Longer output is rejected
+         * or, with {@link LimitPolicy#TRUNCATE}, cut off at the limit. Rendering
+         * stops as soon as the Markdown rendered so far is longer than the
+         * limit, also within a block, and tables stop adding rows once those
+         * added would exceed it. Streaming conversions may have written part
+         * of the output when they fail.
+         * 
+         * @param maxOutputLength the maximum number of characters, or 0 for no
+         *                        limit (the default)
+         * @return this builder
+         */
+        public Builder maxOutputLength(int maxOutputLength) {
+            if (maxOutputLength < 0) {
+                throw new IllegalArgumentException("maxOutputLength must not be negative: " + maxOutputLength);
+            }
+            this.maxOutputLength = maxOutputLength;
+            return this;
+        }
+
+        /**
+         * Limits the time of a conversion. The deadline is checked while
+         * rendering, together with the interrupt status of the thread; an
+         * interrupted conversion always throws. With
+         * {@link LimitPolicy#TRUNCATE} the output converted so far is returned.
+         * 
+         * @param timeout the time allowed, or null for no limit (the default)
+         * @return this builder
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+                throw new IllegalArgumentException("timeout must be positive: " + timeout);
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Sets what a conversion does when it exceeds a limit. Defaults to
+         * {@link LimitPolicy#THROW}.
+         * 
+         * @param limitPolicy the limit policy
+         * @return this builder
+         */
+        public Builder limitPolicy(LimitPolicy limitPolicy) {
+            if (limitPolicy == null) {
+                throw new IllegalArgumentException("limitPolicy must not be null");
+            }
+            this.limitPolicy = limitPolicy;
+            return this;
+        }
+
         /**
          * Builds the configuration.
          * 
@@ -130,4 +823,22 @@ public class ConverterConfig {
             return new ConverterConfig(this);
         }
     }
+
+    /**
+     * Lazily created default executor: virtual threads where available, the
+     * common fork-join pool otherwise.
+     */
+    private static final class DefaultExecutor {
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                // Java 21+, looked up reflectively so the library still runs on 17
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return ForkJoinPool.commonPool();
+            }
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package com.github.htmltomd;
+
+/**
+ * Sink that counts the characters passed on to the next sink.
+ */
+final class CountingSink implements MarkdownSink {
+
+    private final MarkdownSink next;
+    private long count = 0;
+
+    CountingSink(MarkdownSink next) {
+        this.next = next;
+    }
+
+    /**
+     * Gets the number of characters written so far.
+     *
+     * @return the character count
+     */
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(CharSequence text, int start, int end) {
+        count += end - start;
+        next.write(text, start, end);
+    }
+
+    @Override
+    public void finish() {
+        next.finish();
+    }
+}
@@ -0,0 +1,318 @@
+package com.github.htmltomd;
+
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.Tag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parser for the simple, well-formed fragments that make up most short inputs
+ * (chat messages, comments): paragraphs and headings with inline formatting,
+ * links, images and line breaks.
+ * <p>
+ * It builds the same nodes that Jsoup's HTML parser would put in the body, but
+ * without the tree builder, the document and its {@code html/head/body}
+ * wrappers. Anything outside that subset, anything the HTML parser would
+ * repair (unclosed, misnested or stray tags, comments, a bare {@code <}) and
+ * tags with custom handlers or preserve/remove rules make it give up, so the
+ * caller can fall back to the full parser.
+ */
+final class FastPathParser {
+
+    private static final Set<String> BLOCK_TAGS = Set.of("p", "h1", "h2", "h3", "h4", "h5", "h6", "hr");
+    private static final Set<String> INLINE_TAGS = Set.of(
+            "strong", "b", "em", "i", "del", "s", "code", "a", "span", "img", "br");
+    private static final Set<String> VOID_TAGS = Set.of("hr", "img", "br");
+
+    private final String html;
+    private final ConverterConfig config;
+    private final Element body = new Element("body");
+    private final List<Element> open = new ArrayList<>();
+    private int pos = 0;
+
+    private FastPathParser(String html, ConverterConfig config) {
+        this.html = html;
+        this.config = config;
+    }
+
+    /**
+     * Parses a fragment into a body element.
+     *
+     * @param html   the HTML
+     * @param config the configuration
+     * @return the body holding the parsed nodes, or null if the fragment needs
+     *         the full HTML parser
+     */
+    static Element parseBody(String html, ConverterConfig config) {
+        FastPathParser parser = new FastPathParser(html, config);
+        return parser.parse() ? parser.body : null;
+    }
+
+    private boolean parse() {
+        int length = html.length();
+        while (pos < length) {
+            int tagStart = html.indexOf('<', pos);
+            int textEnd = tagStart < 0 ? length : tagStart;
+            if (textEnd > pos && !text(pos, textEnd)) {
+                return false;
+            }
+            if (tagStart < 0) {
+                break;
+            }
+            pos = tagStart + 1;
+            if (!tag()) {
+                return false;
+            }
+        }
+        // Unclosed elements would be closed by the HTML parser
+        return open.isEmpty();
+    }
+
+    private boolean text(int start, int end) {
+        boolean whitespace = true;
+        boolean entities = false;
+        for (int i = start; i < end; i++) {
+            char c = html.charAt(i);
+            if (c == '\r' || c == 0) {
+                // The HTML parser normalizes these
+                return false;
+            }
+            if (c == '&') {
+                entities = true;
+            }
+            if (whitespace && !isWhitespace(c)) {
+                whitespace = false;
+            }
+        }
+
+        if (start == 0 && isWhitespace(html.charAt(0))) {
+            // Leading whitespace is dropped when it ends at a tag or entity,
+            // kept when it starts a text run
+            if (whitespace) {
+                pos = end;
+                return true;
+            }
+            if (entities) {
+                return false;
+            }
+        }
+
+        String text = html.substring(start, end);
+        if (entities) {
+            text = Parser.unescapeEntities(text, false);
+        }
+        current().appendChild(new TextNode(text));
+        pos = end;
+        return true;
+    }
+
+    /**
+     * Parses a start or end tag; {@code pos} is just after the {@code <}.
+     */
+    private boolean tag() {
+        boolean end = pos < html.length() && html.charAt(pos) == '/';
+        if (end) {
+            pos++;
+        }
+        String name = tagName();
+        if (name == null) {
+            return false;
+        }
+
+        if (end) {
+            skipWhitespace();
+            if (pos >= html.length() || html.charAt(pos) != '>'
+                    || open.isEmpty() || !open.get(open.size() - 1).normalName().equals(name)) {
+                return false;
+            }
+            pos++;
+            open.remove(open.size() - 1);
+            return true;
+        }
+
+        if (!allowedHere(name) || config.getCustomHandler(name) != null
+                || config.shouldPreserveTag(name) || config.shouldRemoveTag(name)) {
+            return false;
+        }
+
+        Attributes attributes = new Attributes();
+        Boolean selfClosing = attributes(attributes);
+        if (selfClosing == null) {
+            return false;
+        }
+        boolean isVoid = VOID_TAGS.contains(name);
+        if (selfClosing && !isVoid) {
+            return false;
+        }
+
+        Element element = new Element(Tag.valueOf(name), "", attributes);
+        current().appendChild(element);
+        if (!isVoid) {
+            open.add(element);
+        }
+        return true;
+    }
+
+    private String tagName() {
+        int start = pos;
+        while (pos < html.length() && isAsciiLetterOrDigit(html.charAt(pos))) {
+            pos++;
+        }
+        if (pos == start || !isAsciiLetter(html.charAt(start)) || pos == html.length()) {
+            return null;
+        }
+        char next = html.charAt(pos);
+        if (next != '>' && next != '/' && !isWhitespace(next)) {
+            return null;
+        }
+        return html.substring(start, pos).toLowerCase();
+    }
+
+    /**
+     * Checks that the element can be inserted without the HTML parser moving
+     * or closing anything: blocks only at the top level, no nested links.
+     */
+    private boolean allowedHere(String name) {
+        if (BLOCK_TAGS.contains(name)) {
+            return open.isEmpty();
+        }
+        if (!INLINE_TAGS.contains(name)) {
+            return false;
+        }
+        if (name.equals("a")) {
+            for (Element element : open) {
+                if (element.normalName().equals("a")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses attributes up to and including the closing {@code >}.
+     *
+     * @return whether the tag was self-closing, or null if the attributes need
+     *         the full parser
+     */
+    private Boolean attributes(Attributes attributes) {
+        int length = html.length();
+        while (true) {
+            skipWhitespace();
+            if (pos >= length) {
+                return null;
+            }
+            char c = html.charAt(pos);
+            if (c == '>') {
+                pos++;
+                return false;
+            }
+            if (c == '/') {
+                if (pos + 1 < length && html.charAt(pos + 1) == '>') {
+                    pos += 2;
+                    return true;
+                }
+                return null;
+            }
+
+            int nameStart = pos;
+            while (pos < length) {
+                c = html.charAt(pos);
+                if (isWhitespace(c) || c == '=' || c == '>' || c == '/') {
+                    break;
+                }
+                if (c == '"' || c == '\'' || c == '<' || c == 0) {
+                    return null;
+                }
+                pos++;
+            }
+            if (pos == nameStart) {
+                return null;
+            }
+            String name = html.substring(nameStart, pos).toLowerCase();
+
+            String value = "";
+            skipWhitespace();
+            if (pos < length && html.charAt(pos) == '=') {
+                pos++;
+                skipWhitespace();
+                value = attributeValue();
+                if (value == null) {
+                    return null;
+                }
+            }
+            if (attributes.hasKey(name)) {
+                // The HTML parser keeps the first one
+                return null;
+            }
+            attributes.put(name, value);
+        }
+    }
+
+    private String attributeValue() {
+        int length = html.length();
+        if (pos >= length) {
+            return null;
+        }
+        char quote = html.charAt(pos);
+        int start;
+        int end;
+        if (quote == '"' || quote == '\'') {
+            start = pos + 1;
+            end = html.indexOf(quote, start);
+            if (end < 0) {
+                return null;
+            }
+            pos = end + 1;
+        } else {
+            start = pos;
+            while (pos < length) {
+                char c = html.charAt(pos);
+                if (isWhitespace(c) || c == '>') {
+                    break;
+                }
+                if (c == '"' || c == '\'' || c == '<' || c == '=' || c == '`') {
+                    return null;
+                }
+                pos++;
+            }
+            end = pos;
+            if (end == start) {
+                return null;
+            }
+        }
+
+        String value = html.substring(start, end);
+        if (value.indexOf('\r') >= 0 || value.indexOf(0) >= 0) {
+            return null;
+        }
+        return value.indexOf('&') >= 0 ? Parser.unescapeEntities(value, true) : value;
+    }
+
+    private Element current() {
+        return open.isEmpty() ? body : open.get(open.size() - 1);
+    }
+
+    private void skipWhitespace() {
+        while (pos < html.length() && isWhitespace(html.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.htmltomd;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader that protects fenced (```) code blocks from HTML parsing while the
+ * input is being streamed, replacing each block with a sentinel, see
+ * {@link ProtectedCodeBlocks}.
+ * <p>
+ * Only the text of a code block that is still open is buffered. Blocks are
+ * released once restored, see {@link #getCodeBlocks()}.
+ */
+final class FencedCodeBlockReader extends Reader {
+
+    private static final String FENCE = ProtectedCodeBlocks.FENCE;
+
+    private final Reader in;
+    private final char[] readBuffer = new char[8192];
+    private final StringBuilder pending = new StringBuilder();
+    private final StringBuilder ready = new StringBuilder();
+    private int readyPos = 0;
+    private int closeSearchFrom = FENCE.length();
+    private boolean eof = false;
+    private boolean hasContent = false;
+    private long charsRead = 0;
+
+    private final ProtectedCodeBlocks codeBlocks = new ProtectedCodeBlocks();
+
+    FencedCodeBlockReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Gets the code blocks protected so far.
+     *
+     * @return the protected code blocks
+     */
+    ProtectedCodeBlocks getCodeBlocks() {
+        return codeBlocks;
+    }
+
+    /**
+     * Checks if the input read so far contained anything but whitespace.
+     *
+     * @return true if non-blank input was seen
+     */
+    boolean hasContent() {
+        return hasContent;
+    }
+
+    /**
+     * Gets the number of characters read from the underlying reader so far.
+     *
+     * @return the number of characters read
+     */
+    long getCharsRead() {
+        return charsRead;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        while (readyPos == ready.length()) {
+            ready.setLength(0);
+            readyPos = 0;
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, ready.length() - readyPos);
+        ready.getChars(readyPos, readyPos + n, cbuf, off);
+        readyPos += n;
+        return n;
+    }
+
+    /**
+     * Moves the next piece of protected text into the ready buffer.
+     *
+     * @return false at the end of input
+     */
+    private boolean fill() throws IOException {
+        while (true) {
+            int open = pending.indexOf(FENCE);
+            if (open < 0) {
+                // Keep a possible partial fence at the end for the next round
+                int keep = eof ? 0 : Math.min(pending.length(), FENCE.length() - 1);
+                if (pending.length() > keep) {
+                    moveToReady(pending.length() - keep);
+                    return true;
+                }
+            } else {
+                if (open > 0) {
+                    moveToReady(open);
+                    return true;
+                }
+                // Don't rescan the part of an open block that was already searched
+                int close = pending.indexOf(FENCE, closeSearchFrom);
+                if (close >= 0) {
+                    closeSearchFrom = FENCE.length();
+                    int end = close + FENCE.length();
+                    codeBlocks.protect(pending.substring(0, end), ready);
+                    pending.delete(0, end);
+                    return true;
+                }
+                if (eof) {
+                    // Unterminated fence: pass it through unchanged
+                    moveToReady(pending.length());
+                    return true;
+                }
+                closeSearchFrom = Math.max(FENCE.length(), pending.length() - (FENCE.length() - 1));
+            }
+            if (eof) {
+                return false;
+            }
+            readMore();
+        }
+    }
+
+    private void moveToReady(int count) {
+        codeBlocks.appendText(pending, 0, count, ready);
+        pending.delete(0, count);
+    }
+
+    private void readMore() throws IOException {
+        int n = in.read(readBuffer, 0, readBuffer.length);
+        if (n < 0) {
+            eof = true;
+            return;
+        }
+        charsRead += n;
+        if (!hasContent) {
+            for (int i = 0; i < n; i++) {
+                if (readBuffer[i] > ' ') {
+                    hasContent = true;
+                    break;
+                }
+            }
+        }
+        pending.append(readBuffer, 0, n);
+    }
+
+    @Override
+    public void close() {
+        // The underlying reader belongs to the caller
+    }
+}
@@ -0,0 +1,463 @@
+package com.github.htmltomd;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Empties removed elements in the HTML before it is parsed, so their content
+ * is never turned into nodes. The empty elements are left for the renderer to
+ * skip, as where they are affects how the parser builds the tree around them.
+ * <p>
+ * It follows the tokenizer of the HTML parser: comments, attribute values and
+ * the text of raw text elements are skipped, so only real tags are found. An
+ * element is only emptied where its end is known without building the tree:
+ * raw text elements such as {@code script} and {@code style}, which end at
+ * their first end tag (or at once, when the tag is self-closing), and
+ * {@code svg} and {@code math} when their content is well nested and nothing
+ * in it would end them early. Everything else is only skipped while
+ * rendering. When the input takes a turn the tokenizer handles in a way that
+ * is hard to follow (an unterminated tag, an escaped script), the rest of the
+ * input is left as it is.
+ */
+final class HtmlPruner {
+
+    // Elements whose content is text up to their end tag
+    private static final Set<String> RAW_TEXT_TAGS = Set.of(
+            "script", "style", "xmp", "iframe", "noembed", "noframes", "textarea", "title");
+    private static final Set<String> FOREIGN_TAGS = Set.of("svg", "math");
+    // HTML tags that end foreign content
+    private static final Set<String> BREAKOUT_TAGS = Set.of(
+            "b", "big", "blockquote", "body", "br", "center", "code", "dd", "div", "dl", "dt", "em", "embed",
+            "font", "h1", "h2", "h3", "h4", "h5", "h6", "head", "hr", "i", "img", "li", "listing", "menu",
+            "meta", "nobr", "ol", "p", "pre", "ruby", "s", "small", "span", "strike", "strong", "sub", "sup",
+            "table", "tt", "u", "ul", "var");
+    // Foreign elements whose content is parsed as HTML
+    private static final Set<String> INTEGRATION_POINTS = Set.of(
+            "foreignobject", "desc", "title", "annotation-xml", "mi", "mo", "mn", "ms", "mtext");
+    // Tags that may appear in the head
+    private static final Set<String> HEAD_TAGS = Set.of(
+            "html", "head", "base", "basefont", "bgsound", "link", "meta", "title", "noscript", "noframes",
+            "style", "script", "template");
+    // Tags that end a select in a table
+    private static final Set<String> TABLE_TAGS = Set.of(
+            "caption", "table", "tbody", "tfoot", "thead", "tr", "td", "th");
+    // First letters of the tags looked into outside the head and selects
+    private static final String INITIALS = "fimnpstx";
+    private static final Set<String> VOID_TAGS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr");
+
+    private final String html;
+    private final int length;
+    private final Set<String> tags;
+    private StringBuilder out;
+    private int copied = 0;
+    // The next "<!--" after the last script looked at
+    private int nextComment = -1;
+    // Whether the last tag scanned ended with "/>"
+    private boolean selfClosing;
+
+    private HtmlPruner(String html, Set<String> tags) {
+        this.html = html;
+        this.length = html.length();
+        this.tags = tags;
+    }
+
+    /**
+     * Gets the tags this pruner can empty before parsing.
+     *
+     * @param tags the removed tags
+     * @return the subset that is emptied before parsing, may be empty
+     */
+    static Set<String> prunableTags(Set<String> tags) {
+        Set<String> prunable = new HashSet<>();
+        for (String tag : tags) {
+            if (RAW_TEXT_TAGS.contains(tag) || FOREIGN_TAGS.contains(tag)) {
+                prunable.add(tag);
+            }
+        }
+        return Set.copyOf(prunable);
+    }
+
+    /**
+     * Empties elements in the HTML.
+     *
+     * @param html the HTML
+     * @param tags the tags to empty, from {@link #prunableTags(Set)}
+     * @return the HTML with the elements emptied, or the input itself if
+     *         nothing was dropped
+     */
+    static String prune(String html, Set<String> tags) {
+        if (tags.isEmpty()) {
+            return html;
+        }
+        HtmlPruner pruner = new HtmlPruner(html, tags);
+        int stop = pruner.scan();
+        // Whether a frameset is used depends on the text before it, including
+        // that of emptied elements
+        if (pruner.out == null || pruner.hasFrameset(stop)) {
+            return html;
+        }
+        return pruner.out.append(html, pruner.copied, pruner.length).toString();
+    }
+
+    /**
+     * Empties the elements up to where the rest is better left to the parser.
+     *
+     * @return where scanning stopped, the input length if at the end
+     */
+    private int scan() {
+        // Whether the parser would still be in the head, where noscript holds
+        // text, or in a select, where most tags are ignored
+        boolean inHead = true;
+        boolean inSelect = false;
+        int pos = 0;
+        while (pos < length) {
+            int lt = html.indexOf('<', pos);
+            if (inHead && !isBlank(pos, lt < 0 ? length : lt)) {
+                inHead = false;
+            }
+            if (lt < 0 || lt + 1 >= length) {
+                return length;
+            }
+            char c = html.charAt(lt + 1);
+            boolean endTag = c == '/' && lt + 2 < length && isLetter(html.charAt(lt + 2));
+            if (!endTag && (c == '!' || c == '?' || c == '/')) {
+                pos = skipMarkup(lt);
+                if (pos < 0) {
+                    return lt;
+                }
+                continue;
+            }
+            if (!endTag && !isLetter(c)) {
+                // A '<' in text
+                inHead = false;
+                pos = lt + 1;
+                continue;
+            }
+
+            int nameStart = endTag ? lt + 2 : lt + 1;
+            int nameEnd = nameEnd(nameStart);
+            int end = tagEnd(nameEnd);
+            if (end < 0) {
+                return lt;
+            }
+            pos = end;
+            if (!inHead && !inSelect && INITIALS.indexOf(html.charAt(nameStart) | 0x20) < 0) {
+                // Not an element this pruner looks into
+                continue;
+            }
+            String name = html.substring(nameStart, nameEnd).toLowerCase();
+            if (endTag) {
+                if (inSelect && TABLE_TAGS.contains(name)) {
+                    return lt;
+                }
+                switch (name) {
+                    case "head", "body", "html", "br" -> inHead = false;
+                    case "select" -> inSelect = false;
+                    default -> {
+                        // Does not change where the parser is
+                    }
+                }
+                continue;
+            }
+
+            if (inHead && !HEAD_TAGS.contains(name)) {
+                inHead = false;
+            }
+            if (inSelect) {
+                if (TABLE_TAGS.contains(name) || name.equals("template")) {
+                    return lt;
+                }
+                if (name.equals("select")) {
+                    inSelect = false;
+                    continue;
+                }
+                if (name.equals("input") || name.equals("keygen") || name.equals("textarea")) {
+                    inSelect = false;
+                } else if (!name.equals("script")) {
+                    // Ignored by the parser, so it has no content of its own
+                    continue;
+                }
+            }
+
+            if (name.equals("select")) {
+                inSelect = true;
+            } else if (name.equals("plaintext") || name.equals("frameset")
+                    || (inHead && name.equals("template"))) {
+                // The rest is text, replaces the body, or is parsed in a mode
+                // of its own
+                return lt;
+            } else if (RAW_TEXT_TAGS.contains(name) || (inHead && name.equals("noscript"))) {
+                if (selfClosing) {
+                    // The parser ends it at once, so it is already empty
+                    continue;
+                }
+                int close = rawTextEnd(name, end);
+                if (close < 0) {
+                    // Left for the parser to recover from
+                    return lt;
+                }
+                if (name.equals("script")) {
+                    // Comments in scripts change where they end
+                    if (nextComment < end) {
+                        nextComment = html.indexOf("<!--", end);
+                        if (nextComment < 0) {
+                            nextComment = length;
+                        }
+                    }
+                    if (nextComment < close) {
+                        return lt;
+                    }
+                }
+                pos = tagEnd(close + 2 + name.length());
+                if (pos < 0) {
+                    return lt;
+                }
+                if (tags.contains(name) && !name.equals("noscript")) {
+                    drop(lt, pos, "<" + name + "></" + name + ">");
+                }
+            } else if (FOREIGN_TAGS.contains(name)) {
+                pos = selfClosing ? end : foreignEnd(name, end);
+                if (pos < 0) {
+                    return lt;
+                }
+                if (tags.contains(name)) {
+                    drop(lt, pos, "<" + name + "/>");
+                }
+            }
+        }
+        return length;
+    }
+
+    private boolean hasFrameset(int pos) {
+        for (int lt = html.indexOf('<', pos); lt >= 0; lt = html.indexOf('<', lt + 1)) {
+            if (html.regionMatches(true, lt + 1, "frameset", 0, 8)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isSpace(html.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the end of foreign content, just after the end tag of its root.
+     *
+     * @return the end, or -1 if it cannot be told without parsing
+     */
+    private int foreignEnd(String root, int pos) {
+        ArrayDeque<String> open = new ArrayDeque<>();
+        open.push(root);
+        int integration = 0;
+        while (true) {
+            int lt = html.indexOf('<', pos);
+            if (lt < 0 || lt + 1 >= length) {
+                return -1;
+            }
+            char c = html.charAt(lt + 1);
+            if (c == '/' && lt + 2 < length && isLetter(html.charAt(lt + 2))) {
+                int nameEnd = nameEnd(lt + 2);
+                String name = html.substring(lt + 2, nameEnd).toLowerCase();
+                pos = tagEnd(nameEnd);
+                if (pos < 0 || !name.equals(open.peek())) {
+                    return -1;
+                }
+                open.pop();
+                if (INTEGRATION_POINTS.contains(name)) {
+                    integration--;
+                }
+                if (open.isEmpty()) {
+                    return pos;
+                }
+                continue;
+            }
+            if (c == '!' || c == '?' || c == '/') {
+                pos = skipMarkup(lt);
+                if (pos < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            if (!isLetter(c)) {
+                pos = lt + 1;
+                continue;
+            }
+
+            int nameEnd = nameEnd(lt + 1);
+            String name = html.substring(lt + 1, nameEnd).toLowerCase();
+            pos = tagEnd(nameEnd);
+            if (pos < 0 || BREAKOUT_TAGS.contains(name)
+                    || (integration > 0 && (RAW_TEXT_TAGS.contains(name) || name.equals("plaintext")))) {
+                return -1;
+            }
+            // In HTML content only void elements have no end tag
+            boolean empty = integration > 0 && !FOREIGN_TAGS.contains(name)
+                    ? VOID_TAGS.contains(name)
+                    : selfClosing;
+            if (!empty) {
+                open.push(name);
+                if (INTEGRATION_POINTS.contains(name)) {
+                    integration++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips a comment, CDATA section, doctype, processing instruction or end
+     * tag starting at {@code lt}.
+     *
+     * @return the position after it, or -1 if it runs to the end of the input
+     */
+    private int skipMarkup(int lt) {
+        if (html.startsWith("<!--", lt)) {
+            if (html.startsWith("<!-->", lt)) {
+                return lt + 5;
+            }
+            if (html.startsWith("<!--->", lt)) {
+                return lt + 6;
+            }
+            int close = html.indexOf("--", lt + 4);
+            while (close >= 0) {
+                if (html.startsWith("-->", close)) {
+                    return close + 3;
+                }
+                if (html.startsWith("--!>", close)) {
+                    return close + 4;
+                }
+                close = html.indexOf("--", close + 1);
+            }
+            return -1;
+        }
+        if (html.startsWith("<![CDATA[", lt)) {
+            int close = html.indexOf("]]>", lt + 9);
+            return close < 0 ? -1 : close + 3;
+        }
+        if (html.charAt(lt + 1) == '/' && lt + 2 < length && isLetter(html.charAt(lt + 2))) {
+            return tagEnd(nameEnd(lt + 2));
+        }
+        int close = html.indexOf('>', lt + 2);
+        return close < 0 ? -1 : close + 1;
+    }
+
+    /**
+     * Finds the start of the end tag of a raw text element.
+     *
+     * @return the index of its {@code </}, or -1 if there is none
+     */
+    private int rawTextEnd(String name, int pos) {
+        while (true) {
+            int close = html.indexOf("</", pos);
+            if (close < 0) {
+                return -1;
+            }
+            int nameEnd = close + 2 + name.length();
+            if (html.regionMatches(true, close + 2, name, 0, name.length())
+                    && (nameEnd >= length || isSpace(html.charAt(nameEnd))
+                            || html.charAt(nameEnd) == '/' || html.charAt(nameEnd) == '>')) {
+                return close;
+            }
+            pos = close + 2;
+        }
+    }
+
+    private int nameEnd(int pos) {
+        while (pos < length) {
+            char c = html.charAt(pos);
+            if (isSpace(c) || c == '/' || c == '>') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Skips the attributes of a tag and sets {@link #selfClosing}.
+     *
+     * @param pos the position after the tag name
+     * @return the position after the tag, or -1 if it runs to the end of the
+     *         input
+     */
+    private int tagEnd(int pos) {
+        selfClosing = false;
+        while (pos < length) {
+            char c = html.charAt(pos);
+            if (c == '>') {
+                return pos + 1;
+            }
+            if (c == '/') {
+                if (pos + 1 < length && html.charAt(pos + 1) == '>') {
+                    selfClosing = true;
+                    return pos + 2;
+                }
+                pos++;
+                continue;
+            }
+            if (isSpace(c)) {
+                pos++;
+                continue;
+            }
+
+            // Attribute name; its first character may be '='
+            pos++;
+            while (pos < length && !isSpace(c = html.charAt(pos)) && c != '/' && c != '>' && c != '=') {
+                pos++;
+            }
+            while (pos < length && isSpace(html.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= length || html.charAt(pos) != '=') {
+                continue;
+            }
+            pos++;
+            while (pos < length && isSpace(html.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= length) {
+                return -1;
+            }
+            c = html.charAt(pos);
+            if (c == '"' || c == '\'') {
+                int close = html.indexOf(c, pos + 1);
+                if (close < 0) {
+                    return -1;
+                }
+                pos = close + 1;
+            } else if (c != '>') {
+                while (pos < length && !isSpace(c = html.charAt(pos)) && c != '>') {
+                    pos++;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces an element with an empty one, which the parser treats the same
+     * way, so the tree around it is built as before.
+     */
+    private void drop(int start, int end, String empty) {
+        if (out == null) {
+            out = new StringBuilder(length);
+        }
+        out.append(html, copied, start).append(empty);
+        copied = end;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
@@ -1,31 +1,62 @@
 package com.github.htmltomd;
 
+import com.github.htmltomd.handler.DispatchTable;
 import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.RenderBudget;
 import com.github.htmltomd.handler.impl.*;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
-
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Main converter class for converting HTML to Markdown.
+ * <p>
+ * A converter is immutable and thread-safe: a single instance can be shared by
+ * any number of threads and used for concurrent conversions, provided the
+ * configured {@link ElementHandler}s and {@link PostProcessor}s are themselves
+ * thread-safe (the built-in ones are). Each thread reuses its own handler
+ * context and buffers between conversions, so there is no need to keep a
+ * converter per thread.
  */
 public class HtmlToMarkdownConverter {
 
-    // Precompiled regex patterns for performance
-    private static final Pattern FENCED_CODE_BLOCK = Pattern.compile("```[\\s\\S]*?```", Pattern.MULTILINE);
-
-    private final Map<String, ElementHandler> handlers;
+    private final DispatchTable dispatch;
     private final ConverterConfig config;
+    private final ThreadLocal<ConversionState> states;
+    // Removed tags that are dropped before parsing
+    private final Set<String> prunedTags;
 
     public HtmlToMarkdownConverter() {
         this(ConverterConfig.defaultConfig());
@@ -33,7 +64,11 @@ public class HtmlToMarkdownConverter {
 
     public HtmlToMarkdownConverter(ConverterConfig config) {
         this.config = config;
-        this.handlers = createHandlerMap();
+        this.dispatch = DispatchTable.compile(config, createHandlerMap());
+        this.states = ThreadLocal.withInitial(() -> new ConversionState(config, dispatch));
+        Set<String> removed = new HashSet<>(config.getRemoveTags());
+        removed.removeAll(config.getPreserveTags());
+        this.prunedTags = HtmlPruner.prunableTags(removed);
     }
 
     public String convert(String html) {
@@ -41,67 +76,408 @@ public class HtmlToMarkdownConverter {
             return "";
         }
 
-        // Step 1: Protect code blocks (both fenced and indented) only if they exist
-        List<String> codeBlocks = new ArrayList<>();
-        String protected_ = html;
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+        html = limitInput(html);
+        ConversionCache cache = config.getCache();
+        String markdown = cache != null ? cache.get(config.getFingerprint(), html) : null;
+        boolean cached = markdown != null;
+        if (!cached) {
+            RenderBudget budget = RenderBudget.start(config);
+            markdown = convertUncached(html, budget);
+            // Output cut short by the deadline depends on timing, not on the input
+            if (cache != null && (budget == null || !budget.hasTimedOut())) {
+                cache.put(config.getFingerprint(), html, markdown);
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.cached = cached;
+            event.inputLength = html.length();
+            event.outputLength = markdown.length();
+            event.commit();
+        }
+        return markdown;
+    }
+
+    /**
+     * Applies the maximum input length.
+     */
+    private String limitInput(String html) {
+        int max = config.getMaxInputLength();
+        if (max == 0 || html.length() <= max) {
+            return html;
+        }
+        if (config.getLimitPolicy() == LimitPolicy.THROW) {
+            throw new ConversionLimitException(ConversionLimitException.Limit.INPUT_LENGTH,
+                    "Input longer than " + max + " characters");
+        }
+        // Don't split a surrogate pair
+        return html.substring(0, Character.isHighSurrogate(html.charAt(max - 1)) ? max - 1 : max);
+    }
+
+    private String convertUncached(String html, RenderBudget budget) {
+        ConversionListener listener = config.getListener();
+        MetricsRecorder metrics = listener != null ? new MetricsRecorder(false) : null;
+        long mark = metrics != null ? System.nanoTime() : 0;
+
+        // Step 1: Protect fenced code blocks in a single linear scan
+        ProtectedCodeBlocks codeBlocks = new ProtectedCodeBlocks();
+        String protected_ = codeBlocks.protect(html);
+        if (metrics != null) {
+            mark = metrics.lap(ConversionMetrics.Phase.PROTECT, mark);
+        }
+
+        // Step 2: Parse HTML without the removed elements that can be dropped
+        // up front - simple fragments directly, anything else with Jsoup,
+        // which wraps content in <html><body>
+        protected_ = HtmlPruner.prune(protected_, prunedTags);
+        Element body = config.isFastPathParsing() ? FastPathParser.parseBody(protected_, config) : null;
+        if (body == null) {
+            Document document = Jsoup.parse(protected_);
+            body = document.body();
+        }
+        if (config.isExtractMainContent()) {
+            // Only the main content is converted
+            body = MainContentExtractor.extract(body, config, dispatch);
+        }
+        if (metrics != null) {
+            mark = metrics.lap(ConversionMetrics.Phase.PARSE, mark);
+        }
+
+        ConversionState state = acquireState();
+        state.context.setObserver(metrics);
+        state.context.setBudget(budget);
+        try {
+            // Step 3: Process nodes - preserve TextNodes (original Markdown), convert
+            // Elements
+            MarkdownWriter result = state.markdown;
+            List<Node> nodes = body.childNodes();
+            int chunkSize = config.getParallelChunkSize();
+            int maxOutput = config.getMaxOutputLength();
+            // Rendering stops within a block once the output is over the limit
+            result.setLimit(maxOutput);
+            // Limits stop at the first block over them, which only a
+            // sequential conversion knows
+            if (chunkSize > 0 && nodes.size() > chunkSize && budget == null && maxOutput == 0) {
+                // Independent top-level blocks, converted in chunks on several cores
+                Supplier<HandlerContext> contexts = () -> {
+                    HandlerContext context = new HandlerContext(config, dispatch);
+                    context.setObserver(metrics);
+                    return context;
+                };
+                new ParallelBlockRenderer(nodes, contexts, chunkSize).renderInto(result);
+            } else {
+                for (Node node : nodes) {
+                    if ((budget != null && budget.isExhausted()) || result.isFull()) {
+                        break;
+                    }
+                    renderTopLevelNode(node, state.context, result);
+                }
+            }
+            if (metrics != null) {
+                mark = metrics.lap(ConversionMetrics.Phase.RENDER, mark);
+            }
+
+            // Step 4: Restore code blocks and post-process in a single pass
+            MarkdownSink sink = openPostProcessors(limitOutput(MarkdownSink.to(state.output)));
+            codeBlocks.restore(result, sink);
+            sink.finish();
+            String markdown = state.output.toString();
+
+            if (metrics != null) {
+                metrics.lap(ConversionMetrics.Phase.POST_PROCESS, mark);
+                metrics.setInputLength(html.length());
+                metrics.setOutputLength(markdown.length());
+                metrics.report(listener);
+            }
+            return markdown;
+        } finally {
+            releaseState(state);
+        }
+    }
+
+    /**
+     * Converts HTML read from a stream, writing Markdown as it is produced.
+     * <p>
+     * The document is parsed incrementally and each top-level node of the body
+     * is converted and written out once the parser has moved on to the next
+     * one, then discarded, so memory use is bounded by the largest top-level
+     * blocks rather than the whole document. Where misnested markup leaves an
+     * earlier block open to repairs by the parser, the blocks from there on
+     * are held until it is closed rather than written without the repaired
+     * content; in the worst case that is the rest of the document.
+     * <p>
+     * Neither stream is closed.
+     * 
+     * @param in  the HTML input
+     * @param out the Markdown output
+     * @throws IOException if reading or writing fails
+     */
+    public void convert(Reader in, Writer out) throws IOException {
+        ConversionListener listener = config.getListener();
+        MetricsRecorder metrics = listener != null ? new MetricsRecorder(true) : null;
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+
+        RenderBudget budget = RenderBudget.start(config);
 
-        // Quick check: only protect if code blocks might exist
-        if (html.indexOf("```") >= 0) {
-            protected_ = protectCodeBlocks(html, codeBlocks);
+        if (config.getMaxInputLength() > 0) {
+            in = new LimitedReader(in, config.getMaxInputLength(), config.getLimitPolicy());
         }
+        FencedCodeBlockReader protectedIn = new FencedCodeBlockReader(in);
+        CountingSink counted = new CountingSink(MarkdownSink.to(out));
+        MarkdownSink limited = limitOutput(counted);
+        MarkdownSink sink = openPostProcessors(limited);
+        ConversionState state = acquireState();
+        HandlerContext context = state.context;
+        context.setObserver(metrics);
+        context.setBudget(budget);
+        MarkdownWriter chunk = state.markdown;
+        // A single block longer than the limit is over it in any case
+        chunk.setLimit(config.getMaxOutputLength());
+
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(protectedIn, "")) {
+            Element body = null;
+            Iterator<Element> completed = parser.iterator();
+            // Elements the parser has reported complete; written ones are
+            // dropped by the garbage collector
+            Set<Element> closed = Collections.newSetFromMap(new WeakHashMap<>());
+            // An element found open in the first node of the body
+            Element open = null;
+            boolean stopped = false;
+            while (!stopped && completed.hasNext()) {
+                Element element = completed.next();
+                closed.add(element);
+                Element parent = element.parent();
+                if (parent != null && !"body".equals(parent.normalName())
+                        && dispatch.lookup(element.normalName()).getAction() == DispatchTable.Action.REMOVE) {
+                    // Not needed until its top-level block is complete
+                    element.remove();
+                } else if (parent != null && "body".equals(parent.normalName())) {
+                    body = parent;
+                }
+                // A top-level node is written once the parser has moved on to
+                // the next one. Misnested markup makes that harder to tell: a
+                // table gets misplaced content inserted before it, and for
+                // misnested formatting the parser can keep adding to a block
+                // it reported complete, or to elements it left open in an
+                // earlier block
+                while (!stopped && body != null && body.childNodeSize() > 1 && !endsWithTable(body)
+                        && (open == null || closed.contains(open))) {
+                    Node node = body.childNode(0);
+                    open = findOpenElement(node, closed);
+                    if (open != null) {
+                        break;
+                    }
+                    writeTopLevelNode(node, context, chunk, protectedIn, sink, metrics);
+                    node.remove();
+                    stopped = isStopped(budget, limited);
+                }
+            }
 
-        // Step 2: Parse HTML - Jsoup wraps content in <html><body>
-        Document document = Jsoup.parse(protected_);
-        Element body = document.body();
-        HandlerContext context = new HandlerContext(config, handlers);
+            // The last node and trailing text
+            if (body == null) {
+                body = parser.document().body();
+            }
+            while (!stopped && body.childNodeSize() > 0) {
+                Node node = body.childNode(0);
+                writeTopLevelNode(node, context, chunk, protectedIn, sink, metrics);
+                node.remove();
+                stopped = isStopped(budget, limited);
+            }
 
-        // Step 3: Process nodes - preserve TextNodes (original Markdown), convert
-        // Elements
-        StringBuilder result = new StringBuilder();
-        for (Node node : body.childNodes()) {
-            if (node instanceof TextNode textNode) {
-                // Preserve original text exactly (may be Markdown)
-                String text = textNode.getWholeText();
-                result.append(text);
-            } else if (node instanceof Element element) {
-                // Convert HTML elements to Markdown
-                result.append(context.processElement(element));
+            if (protectedIn.hasContent()) {
+                long mark = metrics != null ? System.nanoTime() : 0;
+                sink.finish();
+                if (metrics != null) {
+                    metrics.lap(ConversionMetrics.Phase.POST_PROCESS, mark);
+                }
+            }
+            if (metrics != null) {
+                metrics.setInputLength(protectedIn.getCharsRead());
+                metrics.setOutputLength(counted.getCount());
+                metrics.report(listener);
             }
+            event.end();
+            if (event.shouldCommit()) {
+                event.streaming = true;
+                event.inputLength = protectedIn.getCharsRead();
+                event.outputLength = counted.getCount();
+                event.commit();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            releaseState(state);
         }
+    }
 
-        // Step 4: Restore code blocks
-        String output = restoreCodeBlocks(result.toString(), codeBlocks);
+    /**
+     * Converts HTML read from a byte stream, writing Markdown as it is produced.
+     * See {@link #convert(Reader, Writer)}. Neither stream is closed.
+     * 
+     * @param in      the HTML input
+     * @param out     the Markdown output
+     * @param charset the charset of both input and output
+     * @throws IOException if reading or writing fails
+     */
+    public void convert(InputStream in, OutputStream out, Charset charset) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset));
+        convert(new InputStreamReader(in, charset), writer);
+        writer.flush();
+    }
 
-        return mergeConsecutiveHeadings(cleanup(output));
+    /**
+     * Converts HTML asynchronously on the configured executor, see
+     * {@link ConverterConfig#getExecutor()}.
+     * 
+     * @param html the HTML to convert
+     * @return a future completing with the Markdown, or exceptionally if the
+     *         conversion fails
+     */
+    public CompletableFuture<String> convertAsync(String html) {
+        return CompletableFuture.supplyAsync(() -> convert(html), config.getExecutor());
     }
 
     /**
-     * Protects code blocks from HTML processing by replacing them with
-     * placeholders.
-     * Handles both fenced (```) and indented (4 spaces) code blocks.
+     * Converts a batch of HTML documents in parallel on the configured executor.
+     * <p>
+     * Results are returned in input order. A document that fails to convert
+     * doesn't fail the batch; its error is captured in its result. At most
+     * {@link ConverterConfig#getMaxConcurrency()} documents are converted at the
+     * same time.
+     * 
+     * @param documents the HTML documents
+     * @return one result per document, in the same order
      */
-    private String protectCodeBlocks(String input, List<String> codeBlocks) {
-        Matcher matcher = FENCED_CODE_BLOCK.matcher(input);
-        StringBuffer sb = new StringBuffer();
+    public List<ConversionResult> convertAll(List<String> documents) {
+        List<ConversionResult> results = new ArrayList<>(documents.size());
+        batch(documents.iterator()).forEachRemaining(results::add);
+        return results;
+    }
 
-        while (matcher.find()) {
-            codeBlocks.add(matcher.group());
-            matcher.appendReplacement(sb, "___CODE_BLOCK_" + (codeBlocks.size() - 1) + "___");
+    /**
+     * Lazily converts a stream of HTML documents in parallel on the configured
+     * executor.
+     * <p>
+     * Results are produced in input order. The input stream is only consumed as
+     * far as {@link ConverterConfig#getMaxConcurrency()} documents ahead of the
+     * result being read, so arbitrarily long streams can be converted in bounded
+     * memory. Errors are captured per document as in {@link #convertAll(List)}.
+     * Closing the returned stream closes the input stream.
+     * 
+     * @param documents the HTML documents
+     * @return a sequential stream of results, in input order
+     */
+    public Stream<ConversionResult> convertAll(Stream<String> documents) {
+        Spliterator<ConversionResult> results = Spliterators.spliteratorUnknownSize(
+                batch(documents.iterator()), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(results, false).onClose(documents::close);
+    }
+
+    private BatchConversion batch(Iterator<String> documents) {
+        return new BatchConversion(documents, this::convert, config.getExecutor(), config.getMaxConcurrency());
+    }
+
+    /**
+     * Applies the maximum output length to the sink receiving the final output.
+     */
+    private MarkdownSink limitOutput(MarkdownSink sink) {
+        int max = config.getMaxOutputLength();
+        return max > 0 ? new OutputLimitSink(sink, max, config.getLimitPolicy()) : sink;
+    }
+
+    /**
+     * Finds an element of a subtree the parser has not reported complete.
+     *
+     * @return the element, or null if all are complete
+     */
+    private static Element findOpenElement(Node node, Set<Element> closed) {
+        if (node instanceof Element root) {
+            for (Element element : root.getAllElements()) {
+                if (!closed.contains(element)) {
+                    return element;
+                }
+            }
         }
-        matcher.appendTail(sb);
+        return null;
+    }
+
+    private static boolean endsWithTable(Element body) {
+        return body.childNode(body.childNodeSize() - 1) instanceof Element last && "table".equals(last.normalName());
+    }
+
+    /**
+     * Checks if a streaming conversion can stop reading input because the
+     * limits are used up.
+     */
+    private static boolean isStopped(RenderBudget budget, MarkdownSink sink) {
+        return (budget != null && budget.isExhausted())
+                || (sink instanceof OutputLimitSink limit && limit.isFull());
+    }
 
-        return sb.toString();
+    private void writeTopLevelNode(Node node, HandlerContext context, MarkdownWriter chunk,
+            FencedCodeBlockReader protectedIn, MarkdownSink sink, MetricsRecorder metrics) {
+        chunk.reset();
+        // Forget state kept for nodes that were already written and discarded
+        context.reset();
+        long mark = metrics != null ? System.nanoTime() : 0;
+        renderTopLevelNode(node, context, chunk);
+        if (metrics != null) {
+            mark = metrics.lap(ConversionMetrics.Phase.RENDER, mark);
+        }
+        protectedIn.getCodeBlocks().restore(chunk, sink);
+        if (metrics != null) {
+            metrics.lap(ConversionMetrics.Phase.POST_PROCESS, mark);
+        }
     }
 
     /**
-     * Restores protected code blocks from placeholders.
+     * Renders a child of the body: text is preserved exactly (it may be
+     * Markdown), elements are converted.
      */
-    private String restoreCodeBlocks(String input, List<String> codeBlocks) {
-        String result = input;
-        for (int i = 0; i < codeBlocks.size(); i++) {
-            result = result.replace("___CODE_BLOCK_" + i + "___", codeBlocks.get(i));
+    static void renderTopLevelNode(Node node, HandlerContext context, MarkdownWriter out) {
+        if (node instanceof TextNode textNode) {
+            out.append(textNode.getWholeText());
+        } else if (node instanceof Element element) {
+            // Convert HTML elements to Markdown, straight into the shared buffer
+            context.renderElement(element, out);
         }
-        return result;
+    }
+
+    /**
+     * Gets this thread's conversion state. A conversion started from within
+     * another one on the same thread (e.g. by a handler) gets a fresh state.
+     */
+    private ConversionState acquireState() {
+        ConversionState state = states.get();
+        if (state.acquire()) {
+            return state;
+        }
+        ConversionState nested = new ConversionState(config, dispatch);
+        nested.acquire();
+        return nested;
+    }
+
+    private void releaseState(ConversionState state) {
+        if (!state.release() && states.get() == state) {
+            // Don't let one huge document pin its buffers to the thread
+            states.remove();
+        }
+    }
+
+    /**
+     * Chains the built-in cleanup and the configured post-processors in front of
+     * the given output sink.
+     */
+    private MarkdownSink openPostProcessors(MarkdownSink output) {
+        MarkdownSink sink = output;
+        List<PostProcessor> postProcessors = config.getPostProcessors();
+        for (int i = postProcessors.size() - 1; i >= 0; i--) {
+            sink = postProcessors.get(i).open(sink);
+        }
+        return PostProcessor.cleanup().open(sink);
     }
 
     private Map<String, ElementHandler> createHandlerMap() {
@@ -121,11 +497,7 @@ public class HtmlToMarkdownConverter {
         registerHandler(handlerMap, new LineBreakHandler(), "br");
         registerHandler(handlerMap, new SpanHandler(), "span");
 
-        // Merge custom handlers from config (they override defaults if tag names match)
-        for (Map.Entry<String, ElementHandler> entry : config.getCustomHandlers().entrySet()) {
-            handlerMap.put(entry.getKey(), entry.getValue());
-        }
-
+        // Custom handlers from config override these when the dispatch table is compiled
         return handlerMap;
     }
 
@@ -137,72 +509,4 @@ public class HtmlToMarkdownConverter {
             map.put(tag.toLowerCase(), handler);
         }
     }
-
-    /**
-     * Merges consecutive headings of the same level using regex.
-     * Example:
-     * # Heading A
-     * # Heading B
-     * Becomes:
-     * # Heading A <br>
-     * Heading B
-     */
-    private String mergeConsecutiveHeadings(String markdown) {
-        // Pattern to match two consecutive headings of the same level
-        // Group 1: The # characters (level)
-        // Group 2: The text of the first heading
-        // Group 3: The text of the second heading
-        // Use a loop to handle chained merges (A + B + C -> A <br> B <br> C)
-
-        Pattern p = Pattern.compile("(?m)^(#+)[ \\t]+(.*?)\\s*\\n+\\s*\\1[ \\t]+(.*?)$");
-        String previous = null;
-        String current = markdown;
-
-        while (!current.equals(previous)) {
-            previous = current;
-            current = p.matcher(current).replaceAll("$1 $2 $3");
-        }
-
-        return current;
-    }
-
-    private String cleanup(String text) {
-        // The handlers now generate well-formatted Markdown directly, so we only need
-        // minimal cleanup: trim lines, preserve code blocks, and compress excessive
-        // newlines
-
-        String[] lines = text.split("\n", -1);
-        StringBuilder cleaned = new StringBuilder(text.length());
-        boolean inCodeBlock = false;
-        int consecutiveEmptyLines = 0;
-
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-
-            if (trimmedLine.startsWith("```")) {
-                // Reset empty line counter when entering/exiting code block
-                consecutiveEmptyLines = 0;
-                inCodeBlock = !inCodeBlock;
-                cleaned.append(trimmedLine).append("\n");
-            } else if (inCodeBlock) {
-                // Preserve code block content exactly
-                cleaned.append(line).append("\n");
-            } else if (trimmedLine.isEmpty()) {
-                // Track consecutive empty lines, max 1 (will result in max 2 newlines)
-                if (consecutiveEmptyLines < 1) {
-                    cleaned.append("\n");
-                    consecutiveEmptyLines++;
-                }
-                // Skip additional empty lines
-            } else {
-                // Non-empty line outside code block
-                consecutiveEmptyLines = 0;
-                cleaned.append(trimmedLine).append("\n");
-            }
-        }
-
-        String result = cleaned.toString();
-
-        return result.trim() + "\n";
-    }
 }
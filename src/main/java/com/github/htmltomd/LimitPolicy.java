@@ -0,0 +1,20 @@
+package com.github.htmltomd;
+
+/**
+ * What a conversion does when it exceeds one of the limits set in
+ * {@link ConverterConfig}.
+ */
+public enum LimitPolicy {
+
+    /**
+     * Fail the conversion with a {@link ConversionLimitException}.
+     */
+    THROW,
+
+    /**
+     * Return degraded output: input and output are cut off at their limits,
+     * elements nested deeper than the maximum depth are flattened to their
+     * text, and rendering stops once the element count or time is used up.
+     */
+    TRUNCATE
+}
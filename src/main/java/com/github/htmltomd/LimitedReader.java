@@ -0,0 +1,46 @@
+package com.github.htmltomd;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader that enforces the maximum input length of a streaming conversion.
+ */
+final class LimitedReader extends Reader {
+
+    private final Reader in;
+    private final int maxLength;
+    private final boolean truncate;
+    private long remaining;
+
+    LimitedReader(Reader in, int maxLength, LimitPolicy policy) {
+        this.in = in;
+        this.maxLength = maxLength;
+        this.truncate = policy == LimitPolicy.TRUNCATE;
+        this.remaining = maxLength;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining == 0) {
+            if (truncate || in.read() < 0) {
+                return -1;
+            }
+            throw new ConversionLimitException(ConversionLimitException.Limit.INPUT_LENGTH,
+                    "Input longer than " + maxLength + " characters");
+        }
+        int n = in.read(cbuf, off, (int) Math.min(len, remaining));
+        if (n > 0) {
+            remaining -= n;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+        // The underlying reader belongs to the caller
+    }
+}
@@ -0,0 +1,262 @@
+package com.github.htmltomd;
+
+import com.github.htmltomd.handler.DispatchTable;
+import com.github.htmltomd.handler.InlineStyle;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the element holding the main content of a page, such as the article
+ * of a blog post without its navigation, sidebars and comments.
+ * <p>
+ * It scores the page the way Readability does, in one pass over the tree with
+ * an explicit stack. Every paragraph of some length adds to the score of its
+ * parent, and half as much to its grandparent, more for longer text with more
+ * commas. The scores are adjusted for the tag and for class names and ids
+ * that suggest content or clutter, and reduced by the share of text in links.
+ * The element with the highest score wins. Navigation, sidebars and elements
+ * whose class name or id suggests clutter are not scored, and are removed if
+ * they are inside the winner.
+ */
+final class MainContentExtractor {
+
+    // Paragraphs shorter than this, in characters other than whitespace, are
+    // not scored
+    private static final int MIN_PARAGRAPH_LENGTH = 25;
+    private static final Set<String> PARAGRAPH_TAGS = Set.of("p", "pre", "td");
+    // Tags that make a div a container rather than a paragraph
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "address", "article", "aside", "blockquote", "div", "dl", "figure", "footer", "form", "h1", "h2",
+            "h3", "h4", "h5", "h6", "header", "hr", "main", "nav", "ol", "p", "pre", "section", "table", "ul");
+    private static final Set<String> SKIPPED_TAGS = Set.of("nav", "aside", "footer");
+    private static final Set<String> SKIPPED_ROLES = Set.of(
+            "navigation", "complementary", "menu", "menubar", "dialog");
+    private static final Pattern UNLIKELY = Pattern.compile(
+            "-ad-|ad-break|agegate|banner|breadcrumb|combx|comment|community|disqus|gdpr|menu|pager|pagination"
+                    + "|popup|related|remark|replies|rss|share|shoutbox|sidebar|skyscraper|social|sponsor|widget",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern MAYBE_CONTENT = Pattern.compile(
+            "article|body|column|content|main|shadow", Pattern.CASE_INSENSITIVE);
+    private static final Pattern POSITIVE = Pattern.compile(
+            "article|body|content|entry|hentry|h-entry|main|page|post|text|blog|story", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NEGATIVE = Pattern.compile(
+            "-ad-|banner|combx|comment|com-|contact|foot|masthead|media|meta|outbrain|promo|related|scroll|share"
+                    + "|shoutbox|sidebar|skyscraper|sponsor|shopping|tags|tool|widget", Pattern.CASE_INSENSITIVE);
+
+    private final ConverterConfig config;
+    private final DispatchTable dispatch;
+    // Elements left out of scoring as clutter
+    private final List<Element> unlikely = new ArrayList<>();
+
+    private Frame[] frames = new Frame[16];
+    private int top = 0;
+    private Element best;
+    private double bestScore;
+
+    private MainContentExtractor(ConverterConfig config, DispatchTable dispatch) {
+        this.config = config;
+        this.dispatch = dispatch;
+    }
+
+    /**
+     * Finds the main content of a page and removes the clutter inside it.
+     *
+     * @param body     the body of the page
+     * @param config   the configuration, for skipping hidden elements
+     * @param dispatch the dispatch table, for skipping removed elements
+     * @return the element holding the main content, or the body itself if it
+     *         has no paragraph long enough to score
+     */
+    static Element extract(Element body, ConverterConfig config, DispatchTable dispatch) {
+        MainContentExtractor extractor = new MainContentExtractor(config, dispatch);
+        extractor.score(body);
+        Element content = extractor.best;
+        if (content == null) {
+            return body;
+        }
+        for (Element element : extractor.unlikely) {
+            if (isInside(element, content)) {
+                element.remove();
+            }
+        }
+        return content;
+    }
+
+    private static boolean isInside(Element element, Element ancestor) {
+        for (Element parent = element.parent(); parent != null; parent = parent.parent()) {
+            if (parent == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void score(Element body) {
+        push(body, false);
+        while (top > 0) {
+            Frame frame = frames[top - 1];
+            if (frame.next < frame.end) {
+                Node node = frame.element.childNode(frame.next++);
+                if (node instanceof TextNode text) {
+                    count(text.getWholeText(), frame);
+                } else if (node instanceof Element child && !isSkipped(child)) {
+                    push(child, frame.link || "a".equals(child.normalName()));
+                }
+            } else {
+                close(frame);
+            }
+        }
+    }
+
+    /**
+     * Checks if an element is left out of scoring with its content.
+     */
+    private boolean isSkipped(Element element) {
+        String name = element.normalName();
+        if (dispatch.lookup(name).getAction() == DispatchTable.Action.REMOVE) {
+            return true;
+        }
+        if (config.isSkipHiddenElements() && element.hasAttr("style")
+                && InlineStyle.parse(element.attr("style")).isHidden()) {
+            return true;
+        }
+        if ("a".equals(name)) {
+            return false;
+        }
+        String names = element.className() + " " + element.id();
+        if (SKIPPED_TAGS.contains(name) || SKIPPED_ROLES.contains(element.attr("role"))
+                || (UNLIKELY.matcher(names).find() && !MAYBE_CONTENT.matcher(names).find())) {
+            unlikely.add(element);
+            return true;
+        }
+        return false;
+    }
+
+    private static void count(String text, Frame frame) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                continue;
+            }
+            frame.text++;
+            if (frame.link) {
+                frame.linkText++;
+            }
+            // Commas, including the Chinese and Arabic ones
+            if (c == ',' || c == '\uff0c' || c == '\u3001' || c == '\u060c') {
+                frame.commas++;
+            }
+        }
+    }
+
+    private void close(Frame frame) {
+        Element element = frame.element;
+        String name = element.normalName();
+        int index = top - 1;
+        if (index > 0) {
+            Frame parent = frames[index - 1];
+            parent.text += frame.text;
+            parent.linkText += frame.linkText;
+            parent.commas += frame.commas;
+            if (BLOCK_TAGS.contains(name)) {
+                parent.hasBlock = true;
+            }
+            if (frame.text >= MIN_PARAGRAPH_LENGTH
+                    && (PARAGRAPH_TAGS.contains(name) || ("div".equals(name) && !frame.hasBlock))) {
+                double score = 1 + frame.commas + Math.min(frame.text / 100, 3);
+                parent.score += score;
+                parent.candidate = true;
+                if (index > 1) {
+                    Frame grandparent = frames[index - 2];
+                    grandparent.score += score / 2;
+                    grandparent.candidate = true;
+                }
+            }
+        }
+        if (frame.candidate) {
+            // The descendants have all been scored by now
+            double linkDensity = frame.text == 0 ? 0 : (double) frame.linkText / frame.text;
+            double score = (frame.score + tagWeight(name) + classWeight(element)) * (1 - linkDensity);
+            if (best == null || score > bestScore) {
+                best = element;
+                bestScore = score;
+            }
+        }
+        frame.element = null;
+        top--;
+    }
+
+    private static int tagWeight(String name) {
+        return switch (name) {
+            case "article", "main" -> 10;
+            case "div" -> 5;
+            case "pre", "td", "blockquote" -> 3;
+            case "address", "ol", "ul", "dl", "dd", "dt", "li", "form" -> -3;
+            case "h1", "h2", "h3", "h4", "h5", "h6", "th" -> -5;
+            default -> 0;
+        };
+    }
+
+    private static int classWeight(Element element) {
+        int weight = 0;
+        for (String names : new String[] {element.className(), element.id()}) {
+            if (!names.isEmpty()) {
+                if (NEGATIVE.matcher(names).find()) {
+                    weight -= 25;
+                }
+                if (POSITIVE.matcher(names).find()) {
+                    weight += 25;
+                }
+            }
+        }
+        return weight;
+    }
+
+    private void push(Element element, boolean link) {
+        if (top == frames.length) {
+            frames = Arrays.copyOf(frames, top * 2);
+        }
+        Frame frame = frames[top];
+        if (frame == null) {
+            frame = new Frame();
+            frames[top] = frame;
+        }
+        top++;
+        frame.element = element;
+        frame.next = 0;
+        frame.end = element.childNodeSize();
+        frame.link = link;
+        frame.text = 0;
+        frame.linkText = 0;
+        frame.commas = 0;
+        frame.score = 0;
+        frame.candidate = false;
+        frame.hasBlock = false;
+    }
+
+    /**
+     * An open element and the text counted in it so far.
+     */
+    private static final class Frame {
+        Element element;
+        int next;
+        int end;
+        // Whether the element is inside a link
+        boolean link;
+        // Characters other than whitespace
+        int text;
+        int linkText;
+        int commas;
+        // Added by the paragraphs among its children and grandchildren
+        double score;
+        boolean candidate;
+        boolean hasBlock;
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.htmltomd;
+
+/**
+ * Single-pass, line-oriented cleanup of the converted Markdown: line trimming,
+ * blank line compression and merging of consecutive headings, see
+ * {@link PostProcessor#cleanup()}.
+ * <p>
+ * Only the current line, the last complete line and any blank lines after it
+ * are buffered, so Markdown is passed on as soon as it is produced. Headings are
+ * not merged inside fenced code blocks.
+ */
+final class MarkdownCleanup implements MarkdownSink {
+
+    private final MarkdownSink out;
+
+    // Cleanup state
+    private final StringBuilder line = new StringBuilder();
+    private boolean inCodeBlock = false;
+    private int consecutiveEmptyLines = 0;
+
+    // Output state: the last non-blank line is held back so that it can be merged
+    // with a following heading, and blank lines are held until more content comes
+    private final StringBuilder held = new StringBuilder();
+    private int heldHeadingLevel = 0;
+    private boolean hasHeld = false;
+    private final StringBuilder pendingBlank = new StringBuilder();
+    private boolean emitted = false;
+
+    MarkdownCleanup(MarkdownSink out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(CharSequence text, int start, int end) {
+        int segmentStart = start;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                line.append(text, segmentStart, i);
+                endLine();
+                segmentStart = i + 1;
+            }
+        }
+        line.append(text, segmentStart, end);
+    }
+
+    @Override
+    public void finish() {
+        endLine();
+        if (hasHeld) {
+            int end = held.length();
+            while (end > 0 && held.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            held.setLength(end);
+            emit(held);
+        }
+        if (!emitted) {
+            emit("");
+        }
+        out.finish();
+    }
+
+    /**
+     * Trims lines, keeps code blocks verbatim and compresses blank lines.
+     */
+    private void endLine() {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        if (end - start >= 3 && line.charAt(start) == '`' && line.charAt(start + 1) == '`'
+                && line.charAt(start + 2) == '`') {
+            // Reset empty line counter when entering/exiting code block
+            consecutiveEmptyLines = 0;
+            inCodeBlock = !inCodeBlock;
+            accept(line, start, end, false);
+        } else if (inCodeBlock) {
+            // Preserve code block content exactly
+            accept(line, 0, line.length(), true);
+        } else if (start == end) {
+            // Max 1 empty line in a row
+            if (consecutiveEmptyLines < 1) {
+                accept(line, 0, 0, false);
+                consecutiveEmptyLines++;
+            }
+        } else {
+            consecutiveEmptyLines = 0;
+            accept(line, start, end, false);
+        }
+        line.setLength(0);
+    }
+
+    /**
+     * Receives a cleaned line; drops leading and trailing blank lines and merges
+     * consecutive headings of the same level.
+     */
+    private void accept(CharSequence text, int start, int end, boolean code) {
+        boolean blank = true;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) > ' ') {
+                blank = false;
+                break;
+            }
+        }
+
+        if (blank) {
+            if (hasHeld) {
+                pendingBlank.append(text, start, end).append('\n');
+            }
+            return;
+        }
+
+        int level = code ? 0 : headingLevel(text, start, end);
+        if (level > 0 && level == heldHeadingLevel) {
+            // # A + # B -> # A B (blank lines in between are dropped)
+            int rest = start + level;
+            while (text.charAt(rest) == ' ' || text.charAt(rest) == '\t') {
+                rest++;
+            }
+            held.append(' ').append(text, rest, end);
+            pendingBlank.setLength(0);
+            return;
+        }
+
+        if (hasHeld) {
+            emit(held);
+            out.write(pendingBlank);
+            pendingBlank.setLength(0);
+        }
+        held.setLength(0);
+        held.append(text, start, end);
+        heldHeadingLevel = level;
+        hasHeld = true;
+    }
+
+    /**
+     * Returns the level of an ATX heading line, or 0 if the line is not one.
+     */
+    private static int headingLevel(CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end && text.charAt(i) == '#') {
+            i++;
+        }
+        if (i == start || i == end || (text.charAt(i) != ' ' && text.charAt(i) != '\t')) {
+            return 0;
+        }
+        return i - start;
+    }
+
+    private void emit(CharSequence text) {
+        out.write(text);
+        out.write("\n");
+        emitted = true;
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.htmltomd;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Receiver of converted Markdown, fed in arbitrary chunks.
+ * Post-processing stages are sinks that forward their output to the next sink.
+ */
+public interface MarkdownSink {
+
+    /**
+     * Writes part of a chunk of Markdown.
+     * 
+     * @param text  the chunk
+     * @param start start index, inclusive
+     * @param end   end index, exclusive
+     */
+    void write(CharSequence text, int start, int end);
+
+    /**
+     * Writes a chunk of Markdown.
+     * 
+     * @param text the chunk
+     */
+    default void write(CharSequence text) {
+        write(text, 0, text.length());
+    }
+
+    /**
+     * Signals the end of the Markdown. Called exactly once, after the last write.
+     */
+    void finish();
+
+    /**
+     * Creates a sink that appends to the given target.
+     * 
+     * @param target the target, e.g. a StringBuilder or Writer
+     * @return the sink
+     */
+    static MarkdownSink to(Appendable target) {
+        if (target instanceof Writer writer) {
+            return new MarkdownSink() {
+                private final char[] buffer = new char[1024];
+
+                @Override
+                public void write(CharSequence text, int start, int end) {
+                    try {
+                        if (text instanceof String string) {
+                            writer.write(string, start, end - start);
+                            return;
+                        }
+                        // Copy through a buffer to avoid creating substrings
+                        while (start < end) {
+                            int n = Math.min(buffer.length, end - start);
+                            for (int i = 0; i < n; i++) {
+                                buffer[i] = text.charAt(start + i);
+                            }
+                            writer.write(buffer, 0, n);
+                            start += n;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public void finish() {
+                }
+            };
+        }
+        return new MarkdownSink() {
+            @Override
+            public void write(CharSequence text, int start, int end) {
+                try {
+                    target.append(text, start, end);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void finish() {
+            }
+        };
+    }
+}
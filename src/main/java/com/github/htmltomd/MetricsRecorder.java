@@ -0,0 +1,92 @@
+package com.github.htmltomd;
+
+import com.github.htmltomd.handler.ElementHandler;
+import com.github.htmltomd.handler.RenderObserver;
+import org.jsoup.nodes.Element;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the metrics of one conversion for a {@link ConversionListener}.
+ * Element callbacks may come from several threads when blocks are rendered in
+ * parallel.
+ */
+final class MetricsRecorder implements RenderObserver {
+
+    private final boolean streaming;
+    private final long startNanos = System.nanoTime();
+    private final EnumMap<ConversionMetrics.Phase, Long> phaseNanos = new EnumMap<>(ConversionMetrics.Phase.class);
+    private final Map<String, long[]> tags = new HashMap<>();
+    private long inputLength = 0;
+    private long outputLength = 0;
+
+    MetricsRecorder(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    @Override
+    public synchronized void elementRendered(Element element, ElementHandler handler, long totalNanos,
+            long selfNanos) {
+        long[] stats = tags.computeIfAbsent(element.normalName(), tag -> new long[2]);
+        stats[0]++;
+        stats[1] += selfNanos;
+    }
+
+    /**
+     * Adds time to a phase.
+     *
+     * @param phase the phase
+     * @param nanos the time in nanoseconds
+     */
+    void addPhase(ConversionMetrics.Phase phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * Records the time since {@code since} for a phase.
+     *
+     * @param phase the phase
+     * @param since the start of the phase, from {@link System#nanoTime()}
+     * @return the current time, i.e. the start of the next phase
+     */
+    long lap(ConversionMetrics.Phase phase, long since) {
+        long now = System.nanoTime();
+        addPhase(phase, now - since);
+        return now;
+    }
+
+    void setInputLength(long inputLength) {
+        this.inputLength = inputLength;
+    }
+
+    void setOutputLength(long outputLength) {
+        this.outputLength = outputLength;
+    }
+
+    /**
+     * Completes the metrics and passes them to the listener.
+     *
+     * @param listener the listener
+     */
+    void report(ConversionListener listener) {
+        long totalNanos = System.nanoTime() - startNanos;
+        if (streaming) {
+            // Parsing is interleaved with rendering; it gets the time not spent elsewhere
+            long other = 0;
+            for (long nanos : phaseNanos.values()) {
+                other += nanos;
+            }
+            phaseNanos.put(ConversionMetrics.Phase.PARSE, Math.max(0, totalNanos - other));
+        }
+        Map<String, ConversionMetrics.TagStats> tagStats = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, long[]> entry : tags.entrySet()) {
+                tagStats.put(entry.getKey(), new ConversionMetrics.TagStats(entry.getValue()[0], entry.getValue()[1]));
+            }
+        }
+        listener.onConversion(new ConversionMetrics(streaming, inputLength, outputLength, totalNanos,
+                phaseNanos, tagStats));
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.htmltomd;
+
+/**
+ * Sink that enforces the maximum output length of a conversion.
+ */
+final class OutputLimitSink implements MarkdownSink {
+
+    private final MarkdownSink next;
+    private final int maxLength;
+    private final boolean truncate;
+    private long length = 0;
+
+    OutputLimitSink(MarkdownSink next, int maxLength, LimitPolicy policy) {
+        this.next = next;
+        this.maxLength = maxLength;
+        this.truncate = policy == LimitPolicy.TRUNCATE;
+    }
+
+    /**
+     * Checks if the output has reached the limit, so that no more needs to be
+     * rendered.
+     *
+     * @return true if the limit was reached
+     */
+    boolean isFull() {
+        return length >= maxLength;
+    }
+
+    @Override
+    public void write(CharSequence text, int start, int end) {
+        long room = maxLength - length;
+        if (end - start > room) {
+            if (!truncate) {
+                throw new ConversionLimitException(ConversionLimitException.Limit.OUTPUT_LENGTH,
+                        "Output longer than " + maxLength + " characters");
+            }
+            end = start + (int) room;
+            // Don't split a surrogate pair
+            if (end > start && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            length = maxLength;
+        } else {
+            length += end - start;
+        }
+        if (end > start) {
+            next.write(text, start, end);
+        }
+    }
+
+    @Override
+    public void finish() {
+        next.finish();
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.htmltomd;
+
+import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import org.jsoup.nodes.Node;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Renders the top-level nodes of a document body in parallel.
+ * <p>
+ * Top-level blocks don't depend on each other's output, so the nodes are split
+ * into chunks of consecutive blocks that are rendered on the common fork-join
+ * pool, each with a fresh {@link HandlerContext}. The chunks are then appended
+ * to the output in document order, which gives the same Markdown as rendering
+ * sequentially.
+ */
+final class ParallelBlockRenderer {
+
+    private final List<Node> nodes;
+    private final Supplier<HandlerContext> contexts;
+    private final int chunkSize;
+    private final MarkdownWriter[] chunks;
+
+    ParallelBlockRenderer(List<Node> nodes, Supplier<HandlerContext> contexts, int chunkSize) {
+        this.nodes = nodes;
+        this.contexts = contexts;
+        this.chunkSize = chunkSize;
+        this.chunks = new MarkdownWriter[(nodes.size() + chunkSize - 1) / chunkSize];
+    }
+
+    /**
+     * Renders all nodes and appends the result to the output.
+     *
+     * @param out the output buffer
+     */
+    void renderInto(MarkdownWriter out) {
+        ForkJoinPool.commonPool().invoke(new ChunkRange(0, chunks.length));
+        for (int i = 0; i < chunks.length; i++) {
+            out.append(chunks[i]);
+            chunks[i] = null;
+        }
+    }
+
+    private void renderChunk(int chunk) {
+        int from = chunk * chunkSize;
+        int to = Math.min(from + chunkSize, nodes.size());
+        HandlerContext context = contexts.get();
+        MarkdownWriter out = new MarkdownWriter();
+        for (int i = from; i < to; i++) {
+            HtmlToMarkdownConverter.renderTopLevelNode(nodes.get(i), context, out);
+        }
+        chunks[chunk] = out;
+    }
+
+    /**
+     * Splits the range of chunks in halves until single chunks are left.
+     */
+    private final class ChunkRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ChunkRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                renderChunk(from);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkRange(from, middle), new ChunkRange(middle, to));
+            }
+        }
+    }
+}
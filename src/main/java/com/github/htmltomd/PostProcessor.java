@@ -0,0 +1,39 @@
+package com.github.htmltomd;
+
+/**
+ * A post-processing stage applied to the Markdown produced by the handlers.
+ * <p>
+ * Stages work on a stream of Markdown chunks so they can be used by both
+ * {@link HtmlToMarkdownConverter#convert(String)} and the streaming
+ * {@link HtmlToMarkdownConverter#convert(java.io.Reader, java.io.Writer)}.
+ * The built-in {@link #cleanup()} stage always runs first; stages added with
+ * {@link ConverterConfig.Builder#addPostProcessor(PostProcessor)} run after it
+ * in the order they were added.
+ * <p>
+ * {@link #open(MarkdownSink)} is called once per conversion and may be called
+ * from several threads at once; the returned sink is only used by the
+ * conversion that opened it.
+ */
+@FunctionalInterface
+public interface PostProcessor {
+
+    /**
+     * Opens the stage for a single conversion.
+     * 
+     * @param next the sink to forward processed Markdown to
+     * @return the sink receiving Markdown for this stage
+     */
+    MarkdownSink open(MarkdownSink next);
+
+    /**
+     * The built-in cleanup stage: trims lines outside code blocks, collapses
+     * runs of blank lines, merges consecutive headings of the same level and
+     * ends the output with a single newline. It works line by line in a single
+     * pass.
+     * 
+     * @return the cleanup stage
+     */
+    static PostProcessor cleanup() {
+        return MarkdownCleanup::new;
+    }
+}
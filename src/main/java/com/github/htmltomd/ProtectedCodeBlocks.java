@@ -0,0 +1,137 @@
+package com.github.htmltomd;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fenced code blocks taken out of the input before HTML parsing, together with
+ * the sentinels that stand in for them.
+ * <p>
+ * A sentinel is {@code U+E000}, the block's index and {@code U+E001}. These
+ * private-use characters are left alone by the HTML parser and the handlers,
+ * and any {@code U+E000} already present in the input is protected like a code
+ * block, so text in the input can never be mistaken for a sentinel.
+ */
+final class ProtectedCodeBlocks {
+
+    static final String FENCE = "```";
+
+    private static final char SENTINEL_START = '\uE000';
+    private static final char SENTINEL_END = '\uE001';
+
+    private final List<String> blocks = new ArrayList<>();
+
+    /**
+     * Replaces the fenced code blocks in the input with sentinels. Fences are
+     * paired from left to right: each block ends at the first fence after the
+     * one that opens it, and an unterminated fence is left as it is.
+     *
+     * @param input the input
+     * @return the input with code blocks replaced, or the input itself if there
+     *         was nothing to protect
+     */
+    String protect(String input) {
+        int open = input.indexOf(FENCE);
+        if (open < 0 && input.indexOf(SENTINEL_START) < 0) {
+            return input;
+        }
+
+        StringBuilder out = new StringBuilder(input.length());
+        int last = 0;
+        while (open >= 0) {
+            int close = input.indexOf(FENCE, open + FENCE.length());
+            if (close < 0) {
+                break;
+            }
+            int end = close + FENCE.length();
+            appendText(input, last, open, out);
+            protect(input.substring(open, end), out);
+            last = end;
+            open = input.indexOf(FENCE, last);
+        }
+        appendText(input, last, input.length(), out);
+        return out.toString();
+    }
+
+    /**
+     * Stores a code block and appends its sentinel.
+     *
+     * @param block the code block, including fences
+     * @param out   where to append the sentinel
+     */
+    void protect(String block, StringBuilder out) {
+        blocks.add(block);
+        out.append(SENTINEL_START).append(blocks.size() - 1).append(SENTINEL_END);
+    }
+
+    /**
+     * Appends text that is not part of a code block, protecting any sentinel
+     * characters in it.
+     *
+     * @param text  the text
+     * @param start start of the region to append
+     * @param end   end of the region to append
+     * @param out   where to append the text
+     */
+    void appendText(CharSequence text, int start, int end, StringBuilder out) {
+        int from = start;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == SENTINEL_START) {
+                out.append(text, from, i);
+                protect(String.valueOf(SENTINEL_START), out);
+                from = i + 1;
+            }
+        }
+        out.append(text, from, end);
+    }
+
+    /**
+     * Writes Markdown to the sink in a single pass, replacing sentinels with
+     * the code blocks they stand for. Restored blocks are released.
+     *
+     * @param markdown the converted Markdown
+     * @param sink     the sink
+     */
+    void restore(CharSequence markdown, MarkdownSink sink) {
+        if (blocks.isEmpty()) {
+            sink.write(markdown);
+            return;
+        }
+
+        int length = markdown.length();
+        int from = 0;
+        for (int start = 0; start < length; start++) {
+            if (markdown.charAt(start) != SENTINEL_START) {
+                continue;
+            }
+            int digits = start + 1;
+            int end = digits;
+            while (end < length && markdown.charAt(end) >= '0' && markdown.charAt(end) <= '9') {
+                end++;
+            }
+            int index = end > digits && end < length && markdown.charAt(end) == SENTINEL_END
+                    ? parseIndex(markdown, digits, end)
+                    : -1;
+            if (index < 0 || index >= blocks.size() || blocks.get(index) == null) {
+                continue;
+            }
+            sink.write(markdown, from, start);
+            sink.write(blocks.get(index));
+            blocks.set(index, null);
+            from = end + 1;
+            start = end;
+        }
+        sink.write(markdown, from, length);
+    }
+
+    private static int parseIndex(CharSequence text, int start, int end) {
+        if (end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+}
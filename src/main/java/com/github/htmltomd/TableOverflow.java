@@ -0,0 +1,25 @@
+package com.github.htmltomd;
+
+/**
+ * What a streamed table does with rows that have more cells than its column
+ * count, see {@link ConverterConfig.Builder#streamingTables(int)}.
+ */
+public enum TableOverflow {
+
+    /**
+     * Write the extra cells. No text is lost from the Markdown source, but
+     * GFM renderers drop cells beyond the header, so their text is hidden in
+     * the rendered output.
+     */
+    KEEP,
+
+    /**
+     * Append the text of the extra cells to the last column. The default.
+     */
+    MERGE,
+
+    /**
+     * Leave the extra cells out.
+     */
+    DROP
+}
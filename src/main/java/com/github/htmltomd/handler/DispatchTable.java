@@ -0,0 +1,119 @@
+package com.github.htmltomd.handler;
+
+import com.github.htmltomd.ConverterConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable table deciding what to do with each element, compiled once per
+ * converter from the configuration and the registered handlers.
+ * <p>
+ * Preserve and remove rules, custom handlers and default handlers are resolved
+ * into a single entry per tag name, so rendering an element takes one lookup by
+ * the element's normalized (lower case) name.
+ */
+public final class DispatchTable {
+
+    /**
+     * What to do with an element.
+     */
+    public enum Action {
+        /** Keep the element as HTML. */
+        PRESERVE,
+        /** Drop the element and its content. */
+        REMOVE,
+        /** Render the element with its handler. */
+        HANDLE,
+        /** Render the element's children only. */
+        PASSTHROUGH
+    }
+
+    /**
+     * The resolved action for a tag, with its handler for {@link Action#HANDLE}.
+     */
+    public static final class Entry {
+        private final Action action;
+        private final ElementHandler handler;
+
+        private Entry(Action action, ElementHandler handler) {
+            this.action = action;
+            this.handler = handler;
+        }
+
+        /**
+         * Gets the action.
+         * 
+         * @return the action
+         */
+        public Action getAction() {
+            return action;
+        }
+
+        /**
+         * Gets the handler.
+         * 
+         * @return the handler, or null unless the action is {@link Action#HANDLE}
+         */
+        public ElementHandler getHandler() {
+            return handler;
+        }
+
+        /**
+         * Checks if the output for this tag depends only on the element's
+         * subtree, see {@link ElementHandler#isCacheable()}.
+         * 
+         * @return true if the output may be cached
+         */
+        public boolean isCacheable() {
+            return handler == null || handler.isCacheable();
+        }
+    }
+
+    private static final Entry PASSTHROUGH = new Entry(Action.PASSTHROUGH, null);
+
+    private final Map<String, Entry> entries;
+
+    private DispatchTable(Map<String, Entry> entries) {
+        this.entries = Map.copyOf(entries);
+    }
+
+    /**
+     * Compiles the dispatch table. Preserve rules win over remove rules, which
+     * win over custom handlers from the configuration, which win over the given
+     * handlers.
+     * 
+     * @param config   the configuration
+     * @param handlers the handlers by lower case tag name
+     * @return the dispatch table
+     */
+    public static DispatchTable compile(ConverterConfig config, Map<String, ElementHandler> handlers) {
+        Map<String, Entry> entries = new HashMap<>();
+        for (Map.Entry<String, ElementHandler> handler : handlers.entrySet()) {
+            entries.put(handler.getKey(), new Entry(Action.HANDLE, handler.getValue()));
+        }
+        for (Map.Entry<String, ElementHandler> handler : config.getCustomHandlers().entrySet()) {
+            entries.put(handler.getKey(), new Entry(Action.HANDLE, handler.getValue()));
+        }
+        Entry remove = new Entry(Action.REMOVE, null);
+        for (String tag : config.getRemoveTags()) {
+            entries.put(tag, remove);
+        }
+        Entry preserve = new Entry(Action.PRESERVE, null);
+        for (String tag : config.getPreserveTags()) {
+            entries.put(tag, preserve);
+        }
+        return new DispatchTable(entries);
+    }
+
+    /**
+     * Looks up the entry for a tag.
+     * 
+     * @param normalName the lower case tag name, see {@code Element.normalName()}
+     * @return the entry; tags without rules or handlers pass through
+     */
+    public Entry lookup(String normalName) {
+        Entry entry = entries.get(normalName);
+        return entry != null ? entry : PASSTHROUGH;
+    }
+}
@@ -6,6 +6,10 @@ import org.jsoup.nodes.Element;
  * Interface for handling conversion of specific HTML elements to Markdown.
  * This is a functional interface, allowing for lambda expressions in custom
  * handlers.
+ * <p>
+ * A handler instance is shared by all conversions of a converter, including
+ * concurrent ones, so it must be stateless or thread-safe. Per-conversion state
+ * belongs in the {@link HandlerContext}.
  */
 @FunctionalInterface
 public interface ElementHandler {
@@ -19,6 +23,35 @@ public interface ElementHandler {
      */
     String handle(Element element, HandlerContext context);
 
+    /**
+     * Renders the HTML element into the shared output buffer.
+     * Default implementation appends the result of
+     * {@link #handle(Element, HandlerContext)}, so handlers that only implement
+     * {@code handle} keep working unchanged. Implement {@link RenderingHandler}
+     * to write into the buffer directly.
+     * 
+     * @param element the HTML element
+     * @param context the conversion context
+     * @param out     the output buffer
+     */
+    default void render(Element element, HandlerContext context, MarkdownWriter out) {
+        out.append(handle(element, context));
+    }
+
+    /**
+     * Checks if the output of this handler depends only on the element's
+     * subtree and the indentation level, so that the Markdown of an identical
+     * subtree can be reused, see
+     * {@link com.github.htmltomd.ConverterConfig.Builder#fragmentCache(com.github.htmltomd.ConversionCache)}.
+     * Default implementation returns false; the built-in handlers are
+     * cacheable.
+     * 
+     * @return true if results of this handler may be cached
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
     /**
      * Checks if this handler can handle the given element.
      * Default implementation returns true, as tag-based routing is handled by the
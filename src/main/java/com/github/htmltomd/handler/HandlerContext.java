@@ -2,29 +2,40 @@ package com.github.htmltomd.handler;
 
 import com.github.htmltomd.ConverterConfig;
 import org.jsoup.nodes.Element;
-import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
 
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * Context for element conversion providing access to configuration and helper
  * methods.
+ * <p>
+ * A context holds the state of one conversion at a time (such as the current
+ * indentation level) and is not thread-safe. Converters reuse a context for
+ * consecutive conversions on the same thread, see {@link #reset()}.
+ * <p>
+ * Elements are rendered without recursion, so deeply nested HTML does not
+ * grow the Java stack: {@link TraversalHandler}s are entered and exited by the
+ * context as it walks the tree; other handlers render their own subtree and
+ * only their nesting uses the stack.
  */
 public class HandlerContext {
 
-    // Precompiled patterns for whitespace normalization
-    private static final Pattern MULTIPLE_SPACES = Pattern.compile(" {2,}");
-    private static final Pattern LEADING_WHITESPACE = Pattern.compile("^\\s+");
-
     private final ConverterConfig config;
-    private final Map<String, ElementHandler> handlers;
+    private final DispatchTable dispatch;
     private int indentLevel = 0;
 
+    private RenderObserver observer;
+    private RenderBudget budget;
+    private final TreeWalker walker = new TreeWalker(this);
+
     public HandlerContext(ConverterConfig config, Map<String, ElementHandler> handlers) {
+        this(config, DispatchTable.compile(config, handlers));
+    }
+
+    public HandlerContext(ConverterConfig config, DispatchTable dispatch) {
         this.config = config;
-        this.handlers = handlers;
+        this.dispatch = dispatch;
     }
 
     /**
@@ -36,6 +47,10 @@ public class HandlerContext {
         return config;
     }
 
+    DispatchTable getDispatchTable() {
+        return dispatch;
+    }
+
     /**
      * Gets current indentation level.
      * 
@@ -61,6 +76,52 @@ public class HandlerContext {
         }
     }
 
+    /**
+     * Resets the conversion state so the context can be reused for another
+     * document.
+     */
+    public void reset() {
+        indentLevel = 0;
+        walker.reset();
+    }
+
+    /**
+     * Sets an observer that is notified of every element rendered with this
+     * context.
+     * 
+     * @param observer the observer, or null for none
+     */
+    public void setObserver(RenderObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Gets the observer notified of rendered elements.
+     * 
+     * @return the observer, or null if none
+     */
+    public RenderObserver getObserver() {
+        return observer;
+    }
+
+    /**
+     * Sets the budget that limits the elements rendered with this context.
+     * 
+     * @param budget the budget, or null for no limits
+     */
+    public void setBudget(RenderBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the budget that limits the elements rendered with this context.
+     * 
+     * @return the budget, or null if there are no limits
+     */
+    public RenderBudget getBudget() {
+        return budget;
+    }
+
     /**
      * Processes child elements of the given element.
      * 
@@ -68,42 +129,66 @@ public class HandlerContext {
      * @return the Markdown representation of children
      */
     public String processChildren(Element element) {
-        StringBuilder result = new StringBuilder();
-
-        for (Node node : element.childNodes()) {
-            if (node instanceof TextNode textNode) {
-                String text = textNode.text();
-                // Normalize whitespace in text nodes
-                text = normalizeTextWhitespace(text, result.length() == 0);
-                result.append(text);
-            } else if (node instanceof Element childElement) {
-                result.append(processElement(childElement));
-            }
-        }
+        MarkdownWriter out = new MarkdownWriter();
+        renderChildren(element, out);
+        return out.toString();
+    }
 
-        return result.toString();
+    /**
+     * Renders child nodes of the given element into the output buffer.
+     * 
+     * @param element the parent element
+     * @param out     the output buffer
+     */
+    public void renderChildren(Element element, MarkdownWriter out) {
+        walker.renderChildren(element, out);
     }
 
     /**
-     * Normalizes whitespace in text content.
-     * - Trims leading whitespace if at the start of output
-     * - Preserves single spaces between words
-     * - Removes excessive whitespace
+     * Renders a text node with normalized whitespace, as a child of the element
+     * being rendered: runs of whitespace collapse into a single space, which is
+     * dropped at the start of the element's children.
+     * 
+     * @param text the text node
+     * @param out  the output buffer
      */
-    private String normalizeTextWhitespace(String text, boolean isStart) {
-        if (text.isEmpty()) {
-            return text;
-        }
+    public void renderText(TextNode text, MarkdownWriter out) {
+        walker.renderText(text, out);
+    }
+
+    /**
+     * Gets the state that the {@link TraversalHandler} of the element being
+     * rendered keeps between its calls for that element. Each element starts
+     * with 0.
+     * 
+     * @return the state
+     */
+    public int getState() {
+        return walker.getState();
+    }
 
-        // Collapse multiple spaces to single space
-        text = MULTIPLE_SPACES.matcher(text).replaceAll(" ");
+    /**
+     * Sets the state of the element being rendered, see {@link #getState()}.
+     * 
+     * @param state the state
+     */
+    public void setState(int state) {
+        walker.setState(state);
+    }
 
-        // Trim leading whitespace if this is the start
-        if (isStart) {
-            text = LEADING_WHITESPACE.matcher(text).replaceAll("");
-        }
+    /**
+     * Gets the inline style of an element, parsed from its {@code style}
+     * attribute.
+     * 
+     * @param element the element
+     * @return the style, {@link InlineStyle#EMPTY} if it has none
+     */
+    public InlineStyle getStyle(Element element) {
+        return InlineStyle.parse(element.attr("style"));
+    }
 
-        return text;
+    void renderWith(Element element, TraversalHandler handler, MarkdownWriter out) {
+        walker.renderWith(element, handler, out);
     }
 
     /**
@@ -113,31 +198,18 @@ public class HandlerContext {
      * @return the Markdown representation
      */
     public String processElement(Element element) {
-        String tagName = element.tagName().toLowerCase();
-
-        // Check if should preserve as HTML
-        if (config.shouldPreserveTag(tagName)) {
-            return element.outerHtml();
-        }
-
-        // Check if should remove completely
-        if (config.shouldRemoveTag(tagName)) {
-            return "";
-        }
-
-        // Try custom handler first (from config)
-        ElementHandler customHandler = config.getCustomHandler(tagName);
-        if (customHandler != null) {
-            return customHandler.handle(element, this);
-        }
-
-        // Try default handler from map (O(1) lookup)
-        ElementHandler handler = handlers.get(tagName);
-        if (handler != null) {
-            return handler.handle(element, this);
-        }
+        MarkdownWriter out = new MarkdownWriter();
+        renderElement(element, out);
+        return out.toString();
+    }
 
-        // Default: just process children
-        return processChildren(element);
+    /**
+     * Renders a single element into the output buffer.
+     * 
+     * @param element the element to render
+     * @param out     the output buffer
+     */
+    public void renderElement(Element element, MarkdownWriter out) {
+        walker.renderElement(element, out);
     }
 }
@@ -0,0 +1,42 @@
+package com.github.htmltomd.handler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for an element whose rendering, including its
+ * children, took longer than the threshold.
+ */
+@Name("com.github.htmltomd.Handler")
+@Label("HTML to Markdown Handler")
+@Category("HTML to Markdown")
+@Description("Rendering of an element by its handler, including its children")
+@Threshold("5 ms")
+@StackTrace(false)
+final class HandlerEvent extends jdk.jfr.Event {
+
+    static final EventType TYPE = EventType.getEventType(HandlerEvent.class);
+
+    @Label("Tag")
+    String tag;
+
+    @Label("Handler")
+    @Description("Class of the handler, or empty if only the children were rendered")
+    String handler;
+
+    @Label("Depth")
+    @Description("Nesting depth of the element, 0 for top-level elements of the body")
+    int depth;
+
+    @Label("Child Nodes")
+    int childNodes;
+
+    @Label("Output Length")
+    @Description("Number of characters of Markdown produced for the element")
+    long outputLength;
+}
@@ -0,0 +1,288 @@
+package com.github.htmltomd.handler;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The declarations of a {@code style} attribute, such as
+ * {@code font-weight: bold; color: red}.
+ * <p>
+ * Property names and values are lowercased, and {@code !important} is dropped
+ * from values. When a property is declared more than once, the last
+ * declaration wins. Semicolons inside quotes or parentheses do not end a
+ * declaration.
+ * <p>
+ * Styles are immutable. Parsed styles are kept in a cache shared by all
+ * threads, so that elements with the same style attribute share one instance;
+ * see {@link #parse(String)}.
+ */
+public final class InlineStyle {
+
+    /**
+     * A style without declarations.
+     */
+    public static final InlineStyle EMPTY = new InlineStyle(new String[0], 0);
+
+    // Bounds of the cache: when full it is cleared. Long attributes, which
+    // rarely repeat, are not cached.
+    private static final int MAX_CACHED_STYLES = 1024;
+    private static final int MAX_CACHED_LENGTH = 512;
+    private static final ConcurrentHashMap<String, InlineStyle> CACHE = new ConcurrentHashMap<>();
+
+    private static final int BOLD = 1;
+    private static final int ITALIC = 2;
+    private static final int STRIKETHROUGH = 4;
+    private static final int MONOSPACE = 8;
+    private static final int HIDDEN = 16;
+
+    // Property names and values, alternating, in declaration order
+    private final String[] declarations;
+    private final int flags;
+
+    private InlineStyle(String[] declarations, int size) {
+        this.declarations = size == declarations.length ? declarations : Arrays.copyOf(declarations, size);
+        this.flags = flags();
+    }
+
+    /**
+     * Parses a style attribute. Results are cached by the attribute text.
+     *
+     * @param style the attribute value, may be null
+     * @return the style, {@link #EMPTY} if it has no declarations
+     */
+    public static InlineStyle parse(String style) {
+        if (style == null || style.isEmpty()) {
+            return EMPTY;
+        }
+        if (style.length() > MAX_CACHED_LENGTH) {
+            return parseUncached(style);
+        }
+        InlineStyle parsed = CACHE.get(style);
+        if (parsed == null) {
+            parsed = parseUncached(style);
+            if (CACHE.size() >= MAX_CACHED_STYLES) {
+                CACHE.clear();
+            }
+            CACHE.put(style, parsed);
+        }
+        return parsed;
+    }
+
+    private static InlineStyle parseUncached(String style) {
+        String[] declarations = new String[8];
+        int size = 0;
+        int length = style.length();
+        int start = 0;
+        while (start < length) {
+            // Find the end of the declaration and its first colon
+            int colon = -1;
+            int end = start;
+            char quote = 0;
+            int parens = 0;
+            for (; end < length; end++) {
+                char c = style.charAt(end);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    } else if (c == '\\') {
+                        end++;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '(') {
+                    parens++;
+                } else if (c == ')') {
+                    if (parens > 0) {
+                        parens--;
+                    }
+                } else if (c == ';' && parens == 0) {
+                    break;
+                } else if (c == ':' && colon < 0) {
+                    colon = end;
+                }
+            }
+            end = Math.min(end, length);
+
+            if (colon >= 0) {
+                String name = lowercase(style, start, colon);
+                int valueEnd = stripImportant(style, colon + 1, end);
+                String value = lowercase(style, colon + 1, valueEnd);
+                if (!name.isEmpty() && !value.isEmpty()) {
+                    if (size == declarations.length) {
+                        declarations = Arrays.copyOf(declarations, size * 2);
+                    }
+                    declarations[size++] = name;
+                    declarations[size++] = value;
+                }
+            }
+            start = end + 1;
+        }
+        return size == 0 ? EMPTY : new InlineStyle(declarations, size);
+    }
+
+    /**
+     * Gets the end of a value without a trailing {@code !important}.
+     */
+    private static int stripImportant(String style, int start, int end) {
+        while (end > start && isSpace(style.charAt(end - 1))) {
+            end--;
+        }
+        String important = "important";
+        int bang = end - important.length();
+        if (bang > start && style.regionMatches(true, bang, important, 0, important.length())) {
+            bang--;
+            while (bang > start && isSpace(style.charAt(bang))) {
+                bang--;
+            }
+            if (style.charAt(bang) == '!') {
+                return bang;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Gets the trimmed and lowercased text between two indexes.
+     */
+    private static String lowercase(String style, int start, int end) {
+        while (start < end && isSpace(style.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSpace(style.charAt(end - 1))) {
+            end--;
+        }
+        boolean upper = false;
+        for (int i = start; i < end && !upper; i++) {
+            char c = style.charAt(i);
+            upper = c >= 'A' && c <= 'Z';
+        }
+        if (!upper) {
+            return style.substring(start, end);
+        }
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = style.charAt(i);
+            chars[i - start] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(chars);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private int flags() {
+        int result = 0;
+        String weight = get("font-weight");
+        if (weight != null) {
+            switch (weight) {
+                case "bold", "bolder", "700", "800", "900" -> result |= BOLD;
+                default -> {
+                    // Not bold
+                }
+            }
+        }
+        if ("italic".equals(get("font-style"))) {
+            result |= ITALIC;
+        }
+        String decoration = get("text-decoration");
+        String decorationLine = get("text-decoration-line");
+        if ((decoration != null && decoration.contains("line-through"))
+                || (decorationLine != null && decorationLine.contains("line-through"))) {
+            result |= STRIKETHROUGH;
+        }
+        String family = get("font-family");
+        if (family != null && (family.contains("monospace") || family.contains("courier")
+                || family.contains("consolas") || family.contains("menlo") || family.contains("monaco"))) {
+            result |= MONOSPACE;
+        }
+        if ("none".equals(get("display"))) {
+            result |= HIDDEN;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the value of a property.
+     *
+     * @param property the lowercase property name
+     * @return the lowercased value of its last declaration, or null if it is
+     *         not declared
+     */
+    public String get(String property) {
+        for (int i = declarations.length - 2; i >= 0; i -= 2) {
+            if (declarations[i].equals(property)) {
+                return declarations[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the style has no declarations.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return declarations.length == 0;
+    }
+
+    /**
+     * Checks if the font weight is bold: {@code bold}, {@code bolder} or 700
+     * and above.
+     *
+     * @return true if bold
+     */
+    public boolean isBold() {
+        return (flags & BOLD) != 0;
+    }
+
+    /**
+     * Checks if the font style is {@code italic}.
+     *
+     * @return true if italic
+     */
+    public boolean isItalic() {
+        return (flags & ITALIC) != 0;
+    }
+
+    /**
+     * Checks if the text decoration includes {@code line-through}.
+     *
+     * @return true if struck through
+     */
+    public boolean isStrikethrough() {
+        return (flags & STRIKETHROUGH) != 0;
+    }
+
+    /**
+     * Checks if the font family names a monospaced font, generic or one of the
+     * common ones (Courier, Consolas, Menlo, Monaco).
+     *
+     * @return true if monospaced
+     */
+    public boolean isMonospace() {
+        return (flags & MONOSPACE) != 0;
+    }
+
+    /**
+     * Checks if the element is not displayed: {@code display: none}.
+     *
+     * @return true if hidden
+     */
+    public boolean isHidden() {
+        return (flags & HIDDEN) != 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < declarations.length; i += 2) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(declarations[i]).append(": ").append(declarations[i + 1]).append(';');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,522 @@
+package com.github.htmltomd.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shared output buffer that handlers render Markdown into.
+ * <p>
+ * A single writer is used for a whole conversion, so nested elements append
+ * to the same buffer instead of returning intermediate strings. Handlers that
+ * need to post-process the output of their children (trim it, wrap it in
+ * markers, ...) record the current {@link #length()} before rendering the
+ * children and then work on the region starting at that mark in place.
+ * Trimming only moves text when there is leading whitespace to remove, so
+ * handlers that write their opening marker before the children and trim the
+ * children's output afterwards do not copy it.
+ * <p>
+ * Blockquotes and list items prefix each of their lines, see
+ * {@link #pushLinePrefix}. Prefixes are not written while nested prefixed
+ * regions are still open; when the outermost one is closed, every line gets
+ * the prefixes of all regions it is in, in a single pass. Nesting N levels deep
+ * therefore costs one copy of each line instead of N.
+ */
+public final class MarkdownWriter implements Appendable, CharSequence {
+
+    private final StringBuilder buffer;
+
+    // Line prefixes: pushed but not yet popped, and popped regions waiting for
+    // the outermost region to close, in the order they were popped
+    private final List<LinePrefix> openPrefixes = new ArrayList<>();
+    private final List<PrefixedRegion> regions = new ArrayList<>();
+    private int limit = 0;
+
+    public MarkdownWriter() {
+        this(256);
+    }
+
+    public MarkdownWriter(int capacity) {
+        this.buffer = new StringBuilder(capacity);
+    }
+
+    @Override
+    public MarkdownWriter append(CharSequence text) {
+        buffer.append(text);
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter append(CharSequence text, int start, int end) {
+        buffer.append(text, start, end);
+        return this;
+    }
+
+    @Override
+    public MarkdownWriter append(char c) {
+        buffer.append(c);
+        return this;
+    }
+
+    /**
+     * Appends a string.
+     *
+     * @param text the text to append
+     * @return this writer
+     */
+    public MarkdownWriter append(String text) {
+        buffer.append(text);
+        return this;
+    }
+
+    /**
+     * Appends a character the given number of times.
+     *
+     * @param c     the character
+     * @param count how many times to append it
+     * @return this writer
+     */
+    public MarkdownWriter repeat(char c, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.append(c);
+        }
+        return this;
+    }
+
+    /**
+     * Inserts text at the given offset.
+     *
+     * @param offset the offset to insert at
+     * @param text   the text to insert
+     * @return this writer
+     */
+    public MarkdownWriter insert(int offset, String text) {
+        buffer.insert(offset, text);
+        // Text inserted at the start of a region goes before it
+        for (PrefixedRegion region : regionsAfter(offset)) {
+            region.end += text.length();
+            if (region.start >= offset) {
+                region.start += text.length();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Removes the characters between two offsets.
+     *
+     * @param start start offset, inclusive
+     * @param end   end offset, exclusive
+     * @return this writer
+     */
+    public MarkdownWriter delete(int start, int end) {
+        buffer.delete(start, end);
+        List<PrefixedRegion> affected = regionsAfter(start);
+        for (PrefixedRegion region : affected) {
+            region.end = region.end >= end ? region.end - (end - start) : start;
+            if (region.start > start) {
+                region.start = region.start >= end ? region.start - (end - start) : start;
+            }
+        }
+        affected.removeIf(PrefixedRegion::isEmpty);
+        return this;
+    }
+
+    /**
+     * Trims whitespace (as defined by {@link String#trim()}) from both ends of
+     * the region starting at {@code start}.
+     *
+     * @param start start of the region
+     * @return the length of the region after trimming
+     */
+    public int trim(int start) {
+        int end = buffer.length();
+        while (end > start && buffer.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        setLength(end);
+
+        int first = start;
+        while (first < end && buffer.charAt(first) <= ' ') {
+            first++;
+        }
+        if (first > start) {
+            delete(start, first);
+        }
+        // Prefixes of regions starting here would have been trimmed too
+        for (PrefixedRegion region : regionsAfter(start)) {
+            if (region.start == start) {
+                region.trimFirst = true;
+            }
+        }
+        return buffer.length() - start;
+    }
+
+    /**
+     * Checks if the region starting at {@code start} contains only whitespace.
+     *
+     * @param start start of the region
+     * @return true if the region is blank
+     */
+    public boolean isBlank(int start) {
+        for (int i = start; i < buffer.length(); i++) {
+            if (buffer.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the buffer contains {@code prefix} at the given offset.
+     *
+     * @param prefix the prefix to look for
+     * @param offset the offset to look at
+     * @return true if the prefix is present
+     */
+    public boolean startsWith(String prefix, int offset) {
+        if (hasPendingLinePrefixes(offset) && regionStartsIn(offset, offset + prefix.length())) {
+            // The prefix of the region comes in between
+            return false;
+        }
+        return matches(prefix, offset);
+    }
+
+    private boolean matches(String text, int offset) {
+        if (offset < 0 || offset + text.length() > buffer.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer.charAt(offset + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the buffer ends with {@code suffix}.
+     *
+     * @param suffix the suffix to look for
+     * @return true if the suffix is present
+     */
+    public boolean endsWith(String suffix) {
+        return matches(suffix, buffer.length() - suffix.length());
+    }
+
+    /**
+     * Gets the last character of the buffer.
+     *
+     * @return the last character, or 0 if the buffer is empty
+     */
+    public char lastChar() {
+        return buffer.length() == 0 ? 0 : buffer.charAt(buffer.length() - 1);
+    }
+
+    /**
+     * Removes the region starting at {@code start} and returns it.
+     *
+     * @param start start of the region
+     * @return the removed text
+     */
+    public String cut(int start) {
+        // The text taken out is final, with the prefixes of the regions in it
+        if (hasPendingLinePrefixes(start)) {
+            writeLinePrefixes(start);
+        }
+        String text = buffer.substring(start);
+        setLength(start);
+        return text;
+    }
+
+    /**
+     * Sets the length of the buffer, discarding anything after it.
+     *
+     * @param length the new length
+     */
+    public void setLength(int length) {
+        buffer.setLength(length);
+        List<PrefixedRegion> affected = regionsAfter(length);
+        for (PrefixedRegion region : affected) {
+            region.end = length;
+            region.start = Math.min(region.start, length);
+        }
+        affected.removeIf(PrefixedRegion::isEmpty);
+    }
+
+    /**
+     * Sets the length beyond which the output is over the output limit, so
+     * that rendering can stop, see {@link #isFull()}. Nothing written is cut
+     * off here. The limit is kept by {@link #reset()}.
+     *
+     * @param limit the maximum length, or 0 for no limit
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Checks if the output is longer than the limit.
+     *
+     * @return true if nothing more needs to be rendered
+     */
+    public boolean isFull() {
+        return isFull(0);
+    }
+
+    /**
+     * Checks if the output will be longer than the limit once text that is
+     * still to be written is added, such as the rows of a table.
+     *
+     * @param pending the least length still to be written
+     * @return true if nothing more needs to be rendered
+     */
+    public boolean isFull(long pending) {
+        return limit > 0 && buffer.length() + pending > limit;
+    }
+
+    /**
+     * Clears the buffer, including any line prefixes left open.
+     */
+    public void reset() {
+        buffer.setLength(0);
+        openPrefixes.clear();
+        regions.clear();
+    }
+
+    /**
+     * Starts a region whose lines get a prefix, such as the quote marker of a
+     * blockquote or the marker and indentation of a list item. Every call must
+     * be matched by {@link #popLinePrefix(int)}.
+     *
+     * @param first     the prefix of the first line, written where the region
+     *                  starts
+     * @param rest      the prefix of the following lines
+     * @param trimLines true to trim the whitespace around the text of each
+     *                  line after the prefix
+     */
+    public void pushLinePrefix(String first, String rest, boolean trimLines) {
+        openPrefixes.add(new LinePrefix(first, rest, trimLines));
+    }
+
+    /**
+     * Ends the region started by the last {@link #pushLinePrefix} call: the
+     * lines from {@code start} to the end of the buffer get the prefix. The
+     * text of the region usually ends with a newline. Prefixes are written when
+     * the outermost region is popped; until then the region's text is kept as
+     * it was rendered.
+     *
+     * @param start start of the region
+     */
+    public void popLinePrefix(int start) {
+        LinePrefix prefix = openPrefixes.remove(openPrefixes.size() - 1);
+        if (start < buffer.length()) {
+            regions.add(new PrefixedRegion(prefix, start, buffer.length()));
+        }
+        if (openPrefixes.isEmpty() && !regions.isEmpty()) {
+            writeLinePrefixes(0);
+        }
+    }
+
+    /**
+     * Checks if text from {@code start} on belongs to prefixed regions whose
+     * prefixes are not written yet, so that the text alone does not reproduce
+     * the output.
+     *
+     * @param start start of the text
+     * @return true if prefixes are pending
+     */
+    public boolean hasPendingLinePrefixes(int start) {
+        return !regions.isEmpty() && regions.get(regions.size() - 1).end > start;
+    }
+
+    /**
+     * Gets the pending regions that end after an offset. Regions are popped
+     * in the order they end, and edits happen near the end of the buffer, so
+     * these are the last few regions.
+     */
+    private List<PrefixedRegion> regionsAfter(int offset) {
+        int first = regions.size();
+        while (first > 0 && regions.get(first - 1).end > offset) {
+            first--;
+        }
+        return regions.subList(first, regions.size());
+    }
+
+    private boolean regionStartsIn(int from, int to) {
+        for (PrefixedRegion region : regionsAfter(from)) {
+            if (region.start >= from && region.start < to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rewrites the text of all pending regions with their line prefixes in a
+     * single pass. A line gets the prefixes of the regions it is in from the
+     * outermost to the innermost; a region starting in the middle of a line
+     * writes its first prefix where it starts. A region that trims its lines
+     * drops the whitespace after its prefix and at the end of the line, like
+     * trimming each line before prefixing it. Likewise, leading whitespace of
+     * the first prefix is dropped if the text was trimmed where the region
+     * starts.
+     *
+     * @param start only regions after this offset are written
+     */
+    private void writeLinePrefixes(int start) {
+        List<PrefixedRegion> pending = regionsAfter(start);
+        List<PrefixedRegion> sorted = new ArrayList<>(pending);
+        pending.clear();
+        // Outer regions before the regions they contain; of regions trimmed
+        // to the same text, the one popped last is the outer one
+        Collections.reverse(sorted);
+        sorted.sort(Comparator.comparingInt((PrefixedRegion region) -> region.start)
+                .thenComparing(Comparator.comparingInt((PrefixedRegion region) -> region.end).reversed()));
+        int from = sorted.get(0).start;
+        int to = from;
+        for (PrefixedRegion region : sorted) {
+            to = Math.max(to, region.end);
+        }
+
+        StringBuilder result = new StringBuilder((to - from) + (to - from) / 4 + 16);
+        PrefixedRegion[] active = new PrefixedRegion[sorted.size()];
+        int depth = 0;
+        int next = 0;
+        int pos = from;
+        while (pos < to) {
+            while (depth > 0 && active[depth - 1].end <= pos) {
+                depth--;
+            }
+            // Outermost trimming region of the line and the output length
+            // after its prefix, and whether whitespace is being skipped after
+            // such a prefix
+            PrefixedRegion trimmed = null;
+            int trimFloor = -1;
+            boolean skip = false;
+            for (int i = 0; i < depth; i++) {
+                skip = appendPrefix(result, active[i].prefix.rest, skip);
+                if (active[i].prefix.trimLines) {
+                    if (trimmed == null) {
+                        trimmed = active[i];
+                        trimFloor = result.length();
+                    }
+                    skip = true;
+                }
+            }
+
+            int q = pos;
+            while (true) {
+                while (depth > 0 && active[depth - 1].end <= q) {
+                    depth--;
+                }
+                while (next < sorted.size() && sorted.get(next).start == q) {
+                    PrefixedRegion region = sorted.get(next++);
+                    active[depth++] = region;
+                    skip = appendPrefix(result, region.prefix.first, skip || region.trimFirst);
+                    if (region.prefix.trimLines) {
+                        // A region that ended on this line no longer trims it
+                        if (trimmed == null || trimmed.end <= q) {
+                            trimmed = region;
+                            trimFloor = result.length();
+                        }
+                        skip = true;
+                    }
+                }
+                if (q >= to) {
+                    break;
+                }
+                char c = buffer.charAt(q);
+                if (c == '\n') {
+                    break;
+                }
+                if (!skip || c > ' ') {
+                    result.append(c);
+                    skip = false;
+                }
+                q++;
+            }
+
+            if (trimmed != null && trimmed.end >= q) {
+                int end = result.length();
+                while (end > trimFloor && result.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                result.setLength(end);
+            }
+            if (q < to) {
+                result.append('\n');
+                q++;
+            }
+            pos = q;
+        }
+        buffer.replace(from, to, result.toString());
+    }
+
+    /**
+     * Appends a prefix, leaving out leading whitespace while skipping.
+     *
+     * @return whether whitespace is still being skipped
+     */
+    private static boolean appendPrefix(StringBuilder result, String prefix, boolean skip) {
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (!skip || c > ' ') {
+                result.append(c);
+                skip = false;
+            }
+        }
+        return skip;
+    }
+
+    private record LinePrefix(String first, String rest, boolean trimLines) {
+    }
+
+    private static final class PrefixedRegion {
+        final LinePrefix prefix;
+        int start;
+        int end;
+        // Whether the text was trimmed right where the region starts
+        boolean trimFirst;
+
+        PrefixedRegion(LinePrefix prefix, int start, int end) {
+            this.prefix = prefix;
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean isEmpty() {
+            return start >= end;
+        }
+    }
+
+    /**
+     * Gets the number of characters the buffer can hold without growing.
+     *
+     * @return the current capacity
+     */
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int length() {
+        return buffer.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return buffer.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return buffer.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+}
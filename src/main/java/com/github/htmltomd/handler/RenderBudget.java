@@ -0,0 +1,131 @@
+package com.github.htmltomd.handler;
+
+import com.github.htmltomd.ConversionLimitException;
+import com.github.htmltomd.ConverterConfig;
+import com.github.htmltomd.LimitPolicy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the element count, depth limit and deadline of one conversion. A
+ * budget may be shared by the contexts of a conversion that is rendered in
+ * parallel.
+ * <p>
+ * The deadline is checked cooperatively, every few hundred elements, together
+ * with the interrupt status of the rendering thread.
+ */
+public final class RenderBudget {
+
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    private final boolean truncate;
+    private final int maxDepth;
+    private final int maxElements;
+    private final Duration timeout;
+    private final long deadline;
+    private final AtomicInteger elements = new AtomicInteger();
+    private volatile boolean exhausted = false;
+    private volatile boolean timedOut = false;
+
+    private RenderBudget(ConverterConfig config) {
+        this.truncate = config.getLimitPolicy() == LimitPolicy.TRUNCATE;
+        this.maxDepth = config.getMaxDepth() > 0 ? config.getMaxDepth() : Integer.MAX_VALUE;
+        this.maxElements = config.getMaxElements() > 0 ? config.getMaxElements() : Integer.MAX_VALUE;
+        this.timeout = config.getTimeout();
+        this.deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : 0;
+    }
+
+    /**
+     * Starts the budget of a conversion; the time limit counts from now.
+     * 
+     * @param config the configuration
+     * @return the budget, or null if the configuration sets no depth, element
+     *         or time limit
+     */
+    public static RenderBudget start(ConverterConfig config) {
+        if (config.getMaxDepth() == 0 && config.getMaxElements() == 0 && config.getTimeout() == null) {
+            return null;
+        }
+        return new RenderBudget(config);
+    }
+
+    /**
+     * Checks if rendering should stop because the element count or time is
+     * used up. Only happens with {@link LimitPolicy#TRUNCATE}; otherwise
+     * exceeding a limit throws.
+     * 
+     * @return true if no further elements should be rendered
+     * @throws ConversionLimitException if the time is up and the policy is
+     *                                  {@link LimitPolicy#THROW}, or the
+     *                                  thread was interrupted
+     */
+    public boolean isExhausted() {
+        if (!exhausted) {
+            checkClock();
+        }
+        return exhausted;
+    }
+
+    /**
+     * Checks if rendering was stopped because the time was up, so the output
+     * depends on timing rather than only on the input.
+     * 
+     * @return true if the deadline passed
+     */
+    public boolean hasTimedOut() {
+        return timedOut;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Counts an element about to be rendered.
+     * 
+     * @return false if the element must be skipped
+     */
+    boolean enterElement() {
+        if (exhausted) {
+            return false;
+        }
+        int count = elements.incrementAndGet();
+        if (count > maxElements) {
+            exceeded(ConversionLimitException.Limit.ELEMENTS, "More than " + maxElements + " elements");
+            return false;
+        }
+        if (count % CLOCK_CHECK_INTERVAL == 0) {
+            checkClock();
+        }
+        return !exhausted;
+    }
+
+    /**
+     * Called when an element is nested deeper than the maximum depth.
+     */
+    void depthExceeded() {
+        if (!truncate) {
+            throw new ConversionLimitException(ConversionLimitException.Limit.DEPTH,
+                    "Elements nested deeper than " + maxDepth);
+        }
+    }
+
+    private void checkClock() {
+        if (Thread.currentThread().isInterrupted()) {
+            // Keep the interrupt status for the caller
+            throw new ConversionLimitException(ConversionLimitException.Limit.TIME, "Conversion interrupted");
+        }
+        if (timeout != null && System.nanoTime() - deadline > 0) {
+            timedOut = true;
+            exceeded(ConversionLimitException.Limit.TIME, "Conversion took longer than " + timeout);
+        }
+    }
+
+    private void exceeded(ConversionLimitException.Limit limit, String message) {
+        if (!truncate) {
+            throw new ConversionLimitException(limit, message);
+        }
+        exhausted = true;
+    }
+}
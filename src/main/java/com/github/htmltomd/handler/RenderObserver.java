@@ -0,0 +1,25 @@
+package com.github.htmltomd.handler;
+
+import org.jsoup.nodes.Element;
+
+/**
+ * Receives a callback for every element rendered by a {@link HandlerContext},
+ * used to collect conversion metrics.
+ *
+ * @see HandlerContext#setObserver(RenderObserver)
+ */
+@FunctionalInterface
+public interface RenderObserver {
+
+    /**
+     * Called after an element has been rendered.
+     * 
+     * @param element    the element
+     * @param handler    the handler that rendered it, or null if only its
+     *                   children were rendered
+     * @param totalNanos time spent rendering the element, including its children
+     * @param selfNanos  time spent rendering the element, excluding time spent in
+     *                   child elements
+     */
+    void elementRendered(Element element, ElementHandler handler, long totalNanos, long selfNanos);
+}
@@ -0,0 +1,37 @@
+package com.github.htmltomd.handler;
+
+import org.jsoup.nodes.Element;
+
+/**
+ * Element handler that writes its Markdown straight into the shared
+ * {@link MarkdownWriter} instead of returning a new String.
+ * All built-in handlers implement this interface; {@link #handle} is still
+ * available and renders into a fresh buffer.
+ */
+@FunctionalInterface
+public interface RenderingHandler extends ElementHandler {
+
+    /**
+     * Renders the HTML element into the output buffer.
+     * 
+     * @param element the HTML element
+     * @param context the conversion context
+     * @param out     the output buffer
+     */
+    @Override
+    void render(Element element, HandlerContext context, MarkdownWriter out);
+
+    /**
+     * Converts the HTML element to Markdown by rendering it into a new buffer.
+     * 
+     * @param element the HTML element
+     * @param context the conversion context
+     * @return the Markdown representation
+     */
+    @Override
+    default String handle(Element element, HandlerContext context) {
+        MarkdownWriter out = new MarkdownWriter();
+        render(element, context, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.htmltomd.handler;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+
+/**
+ * Element handler that is called like a SAX handler as the converter walks its
+ * element: {@link #onEnter} before the children, {@link #onText} for each child
+ * text node, {@link #onChildElement} and {@link #onChildExit} around each child
+ * element and {@link #onExit} after the children. Child elements are rendered
+ * by the {@link HandlerContext} in between, without recursion, so nesting of
+ * these handlers costs no Java stack. Handlers are shared, so anything they
+ * need to remember between the calls for one element is kept in
+ * {@link HandlerContext#setState(int)}.
+ * <p>
+ * All output goes to the shared writer. Most handlers wrap their children:
+ * {@link #onEnter} writes what comes before them, such as an opening marker,
+ * and {@link #onExit} finishes the output, e.g. by trimming the children's
+ * output and closing the marker, or by dropping everything written since
+ * {@code start} if the children turned out to be empty. Writing opening
+ * markers up front avoids moving the children's output to insert them.
+ */
+public interface TraversalHandler extends RenderingHandler {
+
+    /**
+     * Called before the children of the element are rendered.
+     * 
+     * @param element the HTML element
+     * @param context the conversion context
+     * @param out     the output buffer
+     * @return true to render the children, false to skip them
+     */
+    boolean onEnter(Element element, HandlerContext context, MarkdownWriter out);
+
+    /**
+     * Called after the children of the element are rendered.
+     * 
+     * @param element the HTML element
+     * @param context the conversion context
+     * @param out     the output buffer
+     * @param start   the length of the output before {@link #onEnter} was called
+     */
+    void onExit(Element element, HandlerContext context, MarkdownWriter out, int start);
+
+    /**
+     * Called for each text node among the children of the element. Default
+     * implementation renders the text like any other text, with normalized
+     * whitespace, see {@link HandlerContext#renderText}.
+     * 
+     * @param element the HTML element
+     * @param text    the child text node
+     * @param context the conversion context
+     * @param out     the output buffer
+     */
+    default void onText(Element element, TextNode text, HandlerContext context, MarkdownWriter out) {
+        context.renderText(text, out);
+    }
+
+    /**
+     * Called before each child element of the element is rendered. Default
+     * implementation renders every child.
+     * 
+     * @param element the HTML element
+     * @param child   the child element
+     * @param context the conversion context
+     * @param out     the output buffer
+     * @return true to render the child, false to skip it
+     */
+    default boolean onChildElement(Element element, Element child, HandlerContext context, MarkdownWriter out) {
+        return true;
+    }
+
+    /**
+     * Called after a child element of the element is rendered, if
+     * {@link #onChildElement} returned true. Default implementation does
+     * nothing.
+     * 
+     * @param element    the HTML element
+     * @param child      the child element
+     * @param context    the conversion context
+     * @param out        the output buffer
+     * @param childStart the length of the output before the child was rendered
+     */
+    default void onChildExit(Element element, Element child, HandlerContext context, MarkdownWriter out,
+            int childStart) {
+    }
+
+    /**
+     * Renders the element by entering it, rendering its children and exiting
+     * it. The context does not call this method, but it allows rendering the
+     * element directly.
+     * 
+     * @param element the HTML element
+     * @param context the conversion context
+     * @param out     the output buffer
+     */
+    @Override
+    default void render(Element element, HandlerContext context, MarkdownWriter out) {
+        context.renderWith(element, this, out);
+    }
+}
@@ -0,0 +1,551 @@
+package com.github.htmltomd.handler;
+
+import com.github.htmltomd.ConversionCache;
+import com.github.htmltomd.util.MarkdownUtils;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders element trees with an explicit stack instead of recursion, so the
+ * Java stack stays flat however deeply the HTML is nested.
+ * <p>
+ * Each open element is a {@link Frame} on the stack. A
+ * {@link TraversalHandler} is entered when its element is pushed and exited
+ * when it is popped, after its children. Other handlers render their whole
+ * subtree from {@link ElementHandler#render}; the elements they render through
+ * the context start a nested walk on top of the same stack, so only such
+ * handlers add Java stack frames. Elements nested deeper than
+ * {@link #MAX_RENDER_NESTING} such handlers are rendered as plain text
+ * instead, whatever the limits of the conversion.
+ * <p>
+ * The walker belongs to one {@link HandlerContext} and also tracks the state
+ * that follows the nesting: the depth for the render budget, the fragments
+ * being cached and the time spent in children for observers.
+ */
+final class TreeWalker {
+
+    // Handlers that render their own subtree nested in each other, such as
+    // nested tables, before the innermost ones are flattened to their text.
+    // Well within what a 256 KB stack holds.
+    static final int MAX_RENDER_NESTING = 64;
+
+    private final HandlerContext context;
+
+    private Frame[] frames = new Frame[16];
+    private int top = 0;
+    private int depth = 0;
+    // Handlers rendering their own subtree on the Java stack
+    private int renderNesting = 0;
+
+    // Fragment caching: subtree sizes (-1 if not cacheable)
+    private Map<Element, Integer> fragmentSizes;
+
+    // Metrics: time spent in children of the element being rendered
+    private long childNanos = 0;
+
+    TreeWalker(HandlerContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Forgets the state of the previous conversion.
+     */
+    void reset() {
+        unwind(0);
+        depth = 0;
+        renderNesting = 0;
+        fragmentSizes = null;
+        childNanos = 0;
+    }
+
+    /**
+     * Renders the child nodes of an element.
+     */
+    void renderChildren(Element element, MarkdownWriter out) {
+        int base = top;
+        Frame frame = push();
+        frame.element = element;
+        frame.start = out.length();
+        frame.childrenStart = frame.start;
+        frame.end = element.childNodeSize();
+        try {
+            walk(base, out);
+        } finally {
+            // Only left open if a handler threw
+            unwind(base);
+        }
+    }
+
+    /**
+     * Renders an element with the given handler instead of the handler it is
+     * dispatched to.
+     */
+    void renderWith(Element element, TraversalHandler handler, MarkdownWriter out) {
+        int base = top;
+        Frame frame = push();
+        frame.element = element;
+        frame.handler = handler;
+        frame.start = out.length();
+        try {
+            if (handler.onEnter(element, context, out)) {
+                frame.end = element.childNodeSize();
+            }
+            frame.childrenStart = out.length();
+            walk(base, out);
+        } finally {
+            // Only left open if a handler threw
+            unwind(base);
+        }
+    }
+
+    /**
+     * Gets the state of the innermost open element, see
+     * {@link HandlerContext#getState()}.
+     */
+    int getState() {
+        return frames[top - 1].state;
+    }
+
+    void setState(int state) {
+        frames[top - 1].state = state;
+    }
+
+    /**
+     * Renders an element and its subtree.
+     */
+    void renderElement(Element element, MarkdownWriter out) {
+        int base = top;
+        try {
+            if (open(element, out)) {
+                walk(base, out);
+            }
+        } finally {
+            // Only left open if a handler threw
+            unwind(base);
+        }
+    }
+
+    /**
+     * Renders a text node among the children of the innermost open element.
+     * Whitespace is normalized, and leading whitespace is dropped at the start
+     * of the element's children.
+     */
+    void renderText(TextNode text, MarkdownWriter out) {
+        boolean isStart = top > 0 && out.length() == frames[top - 1].childrenStart;
+        appendNormalizedText(text.getWholeText(), isStart, out);
+    }
+
+    /**
+     * Runs the stack down to {@code base}: renders the next child of the top
+     * frame, or closes the frame once all its children are rendered.
+     */
+    private void walk(int base, MarkdownWriter out) {
+        while (top > base) {
+            Frame frame = frames[top - 1];
+            if (frame.next < frame.end && out.isFull()) {
+                // Over the output limit; the open elements are still closed
+                frame.next = frame.end;
+            }
+            if (frame.next < frame.end) {
+                Node node = frame.element.childNode(frame.next++);
+                if (node instanceof TextNode textNode) {
+                    if (frame.handler instanceof TraversalHandler traversal) {
+                        traversal.onText(frame.element, textNode, context, out);
+                    } else {
+                        renderText(textNode, out);
+                    }
+                } else if (node instanceof Element child) {
+                    if (frame.handler instanceof TraversalHandler traversal) {
+                        if (!traversal.onChildElement(frame.element, child, context, out)) {
+                            continue;
+                        }
+                        int childStart = out.length();
+                        if (open(child, out)) {
+                            frames[top - 1].notifyParent = true;
+                        } else {
+                            traversal.onChildExit(frame.element, child, context, out, childStart);
+                        }
+                    } else {
+                        open(child, out);
+                    }
+                }
+            } else {
+                close(frame, out);
+            }
+        }
+    }
+
+    /**
+     * Starts rendering an element.
+     *
+     * @return true if a frame was pushed for the element
+     */
+    private boolean open(Element element, MarkdownWriter out) {
+        if (out.isFull()) {
+            return false;
+        }
+        RenderBudget budget = context.getBudget();
+        if (budget != null) {
+            if (!budget.enterElement()) {
+                return false;
+            }
+            if (depth >= budget.getMaxDepth()) {
+                budget.depthExceeded();
+                appendNormalizedText(element.text(), false, out);
+                return false;
+            }
+        }
+
+        DispatchTable.Entry entry = context.getDispatchTable().lookup(element.normalName());
+        switch (entry.getAction()) {
+            case PRESERVE -> {
+                out.append(element.outerHtml());
+                return false;
+            }
+            case REMOVE -> {
+                // Removed completely
+                return false;
+            }
+            default -> {
+                if (context.getConfig().isSkipHiddenElements() && element.hasAttr("style")
+                        && context.getStyle(element).isHidden()) {
+                    return false;
+                }
+            }
+        }
+
+        Object fragmentKey = null;
+        String fragmentTree = null;
+        ConversionCache fragmentCache = context.getConfig().getFragmentCache();
+        // Limits make the output of a subtree depend on where and when it is
+        // rendered, and cached fragments would not count against them
+        if (fragmentCache != null && budget == null && context.getConfig().getMaxOutputLength() == 0
+                && isFragmentSized(element)) {
+            // On a miss the descendants are looked up as they are rendered,
+            // so shared parts of a page are found inside what differs
+            fragmentKey = List.of(context.getConfig().getFingerprint(), context.getIndentLevel());
+            fragmentTree = serialize(element);
+            String markdown = fragmentCache.get(fragmentKey, fragmentTree);
+            if (markdown != null) {
+                out.append(markdown);
+                return false;
+            }
+        }
+
+        Frame frame = push();
+        frame.element = element;
+        frame.handler = entry.getHandler();
+        frame.start = out.length();
+        frame.fragmentKey = fragmentKey;
+        frame.fragmentTree = fragmentTree;
+        frame.counted = budget != null;
+        if (frame.counted) {
+            depth++;
+        }
+        if (context.getObserver() != null || HandlerEvent.TYPE.isEnabled()) {
+            frame.instrumented = true;
+            frame.outerChildNanos = childNanos;
+            childNanos = 0;
+            frame.event = new HandlerEvent();
+            frame.event.begin();
+            frame.startNanos = System.nanoTime();
+        }
+
+        ElementHandler handler = frame.handler;
+        if (handler == null) {
+            // Default: just process children
+            frame.end = element.childNodeSize();
+        } else if (handler instanceof TraversalHandler traversal) {
+            if (traversal.onEnter(element, context, out)) {
+                frame.end = element.childNodeSize();
+            }
+        } else if (renderNesting >= MAX_RENDER_NESTING) {
+            appendNormalizedText(element.text(), false, out);
+        } else {
+            // Renders its own subtree; the frame is closed right away
+            renderNesting++;
+            try {
+                handler.render(element, context, out);
+            } finally {
+                renderNesting--;
+            }
+        }
+        frame.childrenStart = out.length();
+        return true;
+    }
+
+    /**
+     * Finishes rendering the element of the top frame and pops it.
+     */
+    private void close(Frame frame, MarkdownWriter out) {
+        Element element = frame.element;
+        if (frame.handler instanceof TraversalHandler traversal) {
+            traversal.onExit(element, context, out, frame.start);
+        }
+        if (frame.instrumented) {
+            long total = System.nanoTime() - frame.startNanos;
+            HandlerEvent event = frame.event;
+            event.end();
+            RenderObserver observer = context.getObserver();
+            if (observer != null) {
+                observer.elementRendered(element, frame.handler, total, total - childNanos);
+            }
+            childNanos = frame.outerChildNanos + total;
+            if (event.shouldCommit()) {
+                event.tag = element.normalName();
+                event.handler = frame.handler != null ? frame.handler.getClass().getName() : "";
+                event.depth = depthOf(element);
+                event.childNodes = element.childNodeSize();
+                event.outputLength = out.length() - frame.start;
+                event.commit();
+            }
+        }
+        if (frame.fragmentKey != null) {
+            // Text waiting for the line prefixes of an enclosing region is not
+            // the final output of the fragment
+            if (!out.hasPendingLinePrefixes(frame.start)) {
+                context.getConfig().getFragmentCache().put(frame.fragmentKey, frame.fragmentTree,
+                        out.subSequence(frame.start, out.length()).toString());
+            }
+        }
+        if (frame.counted) {
+            depth--;
+        }
+        int start = frame.start;
+        boolean notifyParent = frame.notifyParent;
+        frame.clear();
+        top--;
+        if (notifyParent && frames[top - 1].handler instanceof TraversalHandler parent) {
+            parent.onChildExit(frames[top - 1].element, element, context, out, start);
+        }
+    }
+
+    /**
+     * Drops the frames above {@code base} without finishing their elements,
+     * keeping the nesting state consistent.
+     */
+    private void unwind(int base) {
+        while (top > base) {
+            Frame frame = frames[--top];
+            if (frame.counted) {
+                depth--;
+            }
+            if (frame.instrumented) {
+                childNanos = frame.outerChildNanos;
+            }
+            frame.clear();
+        }
+    }
+
+    private Frame push() {
+        if (top == frames.length) {
+            frames = Arrays.copyOf(frames, top * 2);
+        }
+        Frame frame = frames[top];
+        if (frame == null) {
+            frame = new Frame();
+            frames[top] = frame;
+        }
+        top++;
+        return frame;
+    }
+
+    private static int depthOf(Element element) {
+        int depth = 0;
+        for (Element parent = element.parent(); parent != null && !"body".equals(parent.normalName());
+                parent = parent.parent()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Appends text with normalized whitespace.
+     * - Trims leading whitespace if at the start of output
+     * - Collapses runs of whitespace (including no-break and other Unicode
+     *   spaces) into a single space
+     * - Drops invisible characters (zero width space, soft hyphen)
+     */
+    static void appendNormalizedText(String text, boolean isStart, MarkdownWriter out) {
+        boolean lastWasWhite = isStart;
+        int from = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (MarkdownUtils.isWhitespace(c)) {
+                if (c == ' ' && !lastWasWhite) {
+                    // A single space can be copied as it is
+                    lastWasWhite = true;
+                    continue;
+                }
+                out.append(text, from, i);
+                if (!lastWasWhite) {
+                    out.append(' ');
+                    lastWasWhite = true;
+                }
+                from = i + 1;
+            } else if (c == '\u200B' || c == '\u00AD') {
+                out.append(text, from, i);
+                from = i + 1;
+            } else {
+                lastWasWhite = false;
+            }
+        }
+        out.append(text, from, text.length());
+    }
+
+    /**
+     * Checks if an element's subtree is cacheable and within the configured
+     * fragment sizes.
+     */
+    private boolean isFragmentSized(Element element) {
+        int size = fragmentSize(element);
+        return size >= context.getConfig().getMinFragmentNodes()
+                && size <= context.getConfig().getMaxFragmentNodes();
+    }
+
+    /**
+     * Counts the nodes in an element's subtree, or returns -1 if any element in
+     * it is rendered by a handler that is not cacheable. Sizes of all
+     * descendants are remembered, so each subtree is only counted once.
+     */
+    private int fragmentSize(Element root) {
+        if (fragmentSizes == null) {
+            fragmentSizes = new IdentityHashMap<>();
+        }
+        Integer known = fragmentSizes.get(root);
+        if (known != null) {
+            return known;
+        }
+
+        // Post-order with an explicit stack: an element is sized once all its
+        // child elements are
+        DispatchTable table = context.getDispatchTable();
+        ArrayDeque<Element> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Element element = pending.peek();
+            DispatchTable.Entry entry = table.lookup(element.normalName());
+            boolean leaf = entry.getAction() == DispatchTable.Action.PRESERVE
+                    || entry.getAction() == DispatchTable.Action.REMOVE;
+            boolean ready = true;
+            if (!leaf) {
+                for (Node node : element.childNodes()) {
+                    if (node instanceof Element child && !fragmentSizes.containsKey(child)) {
+                        pending.push(child);
+                        ready = false;
+                    }
+                }
+            }
+            if (!ready) {
+                continue;
+            }
+            pending.pop();
+            int size;
+            if (leaf) {
+                size = 1;
+            } else {
+                size = entry.isCacheable() ? 1 : -1;
+                for (Node node : element.childNodes()) {
+                    int childSize = node instanceof Element child ? fragmentSizes.get(child) : 1;
+                    size = size < 0 || childSize < 0 ? -1 : size + childSize;
+                }
+            }
+            fragmentSizes.put(element, size);
+        }
+        return fragmentSizes.get(root);
+    }
+
+    /**
+     * Serializes a subtree exactly, as the key of its cached fragment. Unlike
+     * {@code outerHtml()}, which pretty-prints and so collapses whitespace
+     * that changes the output, text is kept as it is, prefixed with its
+     * length so that no two trees share a key.
+     */
+    private static String serialize(Element root) {
+        StringBuilder tree = new StringBuilder();
+        NodeTraversor.traverse(new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof Element element) {
+                    tree.append('<').append(element.tagName());
+                    for (Attribute attribute : element.attributes()) {
+                        appendLengthPrefixed(tree.append(' '), attribute.getKey());
+                        appendLengthPrefixed(tree.append('='), attribute.getValue());
+                    }
+                    tree.append('>');
+                } else if (node instanceof TextNode text) {
+                    appendLengthPrefixed(tree.append('T'), text.getWholeText());
+                } else if (node instanceof DataNode data) {
+                    appendLengthPrefixed(tree.append('D'), data.getWholeData());
+                } else if (node instanceof Comment comment) {
+                    appendLengthPrefixed(tree.append('C'), comment.getData());
+                } else {
+                    appendLengthPrefixed(tree.append('N'), node.outerHtml());
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                if (node instanceof Element) {
+                    tree.append("</>");
+                }
+            }
+        }, root);
+        return tree.toString();
+    }
+
+    private static void appendLengthPrefixed(StringBuilder tree, String text) {
+        tree.append(text.length()).append(':').append(text);
+    }
+
+    /**
+     * An element being rendered.
+     */
+    private static final class Frame {
+        Element element;
+        ElementHandler handler;
+        // Output offsets of the element and of its children
+        int start;
+        int childrenStart;
+        // Next child to render, and the number of children to render
+        int next;
+        int end;
+        // Set by the element's traversal handler
+        int state;
+        // Whether the parent's traversal handler is told when it is closed
+        boolean notifyParent;
+        Object fragmentKey;
+        String fragmentTree;
+        boolean counted;
+        boolean instrumented;
+        long startNanos;
+        long outerChildNanos;
+        HandlerEvent event;
+
+        void clear() {
+            element = null;
+            handler = null;
+            next = 0;
+            end = 0;
+            state = 0;
+            notifyParent = false;
+            fragmentKey = null;
+            fragmentTree = null;
+            counted = false;
+            instrumented = false;
+            event = null;
+        }
+    }
+}
@@ -1,36 +1,41 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.TraversalHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of blockquote elements to Markdown.
  */
-public class BlockquoteHandler implements ElementHandler {
+public class BlockquoteHandler implements TraversalHandler {
 
     @Override
     public boolean canHandle(Element element) {
-        return "blockquote".equals(element.tagName().toLowerCase());
+        return "blockquote".equals(element.normalName());
     }
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        String content = context.processChildren(element).trim();
+    public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+        out.pushLinePrefix("> ", "> ", true);
+        return true;
+    }
 
-        if (content.isEmpty()) {
-            return "";
+    @Override
+    public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
+        if (out.trim(start) == 0) {
+            out.popLinePrefix(start);
+            return;
         }
 
-        // Split by lines and prefix each with >
-        String[] lines = content.split("\n");
-        StringBuilder result = new StringBuilder();
-
-        for (String line : lines) {
-            result.append("> ").append(line.trim()).append("\n");
-        }
+        // Each trimmed line of the content is prefixed with >
+        out.append('\n');
+        out.popLinePrefix(start);
+        out.append('\n');
+    }
 
-        result.append("\n");
-        return result.toString();
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
@@ -1,32 +1,32 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.RenderingHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of code elements to Markdown.
  * Supports: code (inline), pre (code blocks).
  */
-public class CodeHandler implements ElementHandler {
+public class CodeHandler implements RenderingHandler {
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        String tag = element.tagName().toLowerCase();
+    public void render(Element element, HandlerContext context, MarkdownWriter out) {
+        String tag = element.normalName();
 
         if (tag.equals("pre")) {
-            return handlePreTag(element, context);
+            renderPreTag(element, out);
         } else {
-            return handleCodeTag(element);
+            renderCodeTag(element, out);
         }
     }
 
-    private String handleCodeTag(Element element) {
-        String text = element.text();
-        return "`" + text + "`";
+    private void renderCodeTag(Element element, MarkdownWriter out) {
+        out.append('`').append(element.text()).append('`');
     }
 
-    private String handlePreTag(Element element, HandlerContext context) {
+    private void renderPreTag(Element element, MarkdownWriter out) {
         // Check if pre contains a code element
         Element codeElement = element.selectFirst("code");
         String code;
@@ -39,7 +39,7 @@ public class CodeHandler implements ElementHandler {
             code = element.text();
         }
 
-        return "```" + language + "\n" + code + "\n```\n\n";
+        out.append("```").append(language).append('\n').append(code).append("\n```\n\n");
     }
 
     /**
@@ -69,4 +69,9 @@ public class CodeHandler implements ElementHandler {
 
         return "";
     }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
 }
@@ -1,46 +1,60 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.TraversalHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of emphasis elements to Markdown.
  * Supports: strong/b (bold), em/i (italic), del/s (strikethrough).
  */
-public class EmphasisHandler implements ElementHandler {
+public class EmphasisHandler implements TraversalHandler {
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        String tag = element.tagName().toLowerCase();
-        String text = context.processChildren(element).trim(); // Trim to avoid spaces inside markers
+    public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+        // Open the marker right away; it is dropped again if the content is empty
+        out.append(marker(element));
+        return true;
+    }
+
+    @Override
+    public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
+        String marker = marker(element);
+        int contentStart = start + marker.length();
+        int length = out.trim(contentStart); // Trim to avoid spaces inside markers
 
         // If content is empty after trimming, don't generate markers
-        if (text.isEmpty()) {
-            return "";
+        if (length == 0) {
+            out.setLength(start);
+            return;
+        }
+
+        if (marker.isEmpty()) {
+            return;
         }
 
         // Check if content already has the same emphasis markers to avoid duplication
         // This handles nested emphasis tags like <strong><strong>text</strong></strong>
-        String marker = switch (tag) {
+        if (out.startsWith(marker, contentStart) && out.endsWith(marker) && length > marker.length() * 2) {
+            out.delete(start, contentStart); // Already has the same markers, don't duplicate
+            return;
+        }
+
+        out.append(marker);
+    }
+
+    private static String marker(Element element) {
+        return switch (element.normalName()) {
             case "strong", "b" -> "**";
             case "em", "i" -> "*";
             case "del", "s" -> "~~";
             default -> "";
         };
+    }
 
-        // If the marker is not empty and content already starts/ends with this marker,
-        // skip adding
-        if (!marker.isEmpty() && text.startsWith(marker) && text.endsWith(marker)
-                && text.length() > marker.length() * 2) {
-            return text; // Already has the same markers, don't duplicate
-        }
-
-        return switch (tag) {
-            case "strong", "b" -> "**" + text + "**";
-            case "em", "i" -> "*" + text + "*";
-            case "del", "s" -> "~~" + text + "~~";
-            default -> text;
-        };
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
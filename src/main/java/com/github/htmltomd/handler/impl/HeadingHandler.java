@@ -1,7 +1,8 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.TraversalHandler;
 import org.jsoup.nodes.Element;
 
 import java.util.regex.Pattern;
@@ -9,30 +10,44 @@ import java.util.regex.Pattern;
 /**
  * Handles conversion of heading elements (h1-h6) to Markdown.
  */
-public class HeadingHandler implements ElementHandler {
+public class HeadingHandler implements TraversalHandler {
 
     private static final Pattern IMAGE_ONLY_PATTERN = Pattern.compile("^!\\[.*?\\]\\(.*?\\)$");
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        String tag = element.tagName().toLowerCase();
-        int level = Integer.parseInt(tag.substring(1));
+    public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+        // Ensure proper spacing: newline before, space after #
+        out.append('\n').repeat('#', level(element)).append(' ');
+        return true;
+    }
 
-        String text = context.processChildren(element).trim();
+    @Override
+    public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
+        int contentStart = start + level(element) + 2;
 
         // Remove empty headings
-        if (text.isEmpty()) {
-            return "";
+        if (out.trim(contentStart) == 0) {
+            out.setLength(start);
+            return;
         }
 
-        // If heading contains only an image, return just the image (remove heading
+        // If heading contains only an image, keep just the image (remove heading
         // attribute)
-        if (IMAGE_ONLY_PATTERN.matcher(text).matches()) {
-            return text + "\n\n";
+        if (!out.hasPendingLinePrefixes(contentStart)
+                && IMAGE_ONLY_PATTERN.matcher(out).region(contentStart, out.length()).matches()) {
+            out.delete(start, contentStart);
         }
 
-        String prefix = "#".repeat(level);
-        // Ensure proper spacing: newline before, space after #, newline after
-        return "\n" + prefix + " " + text + "\n\n";
+        // Newline after
+        out.append("\n\n");
+    }
+
+    private static int level(Element element) {
+        return element.normalName().charAt(1) - '0';
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
@@ -1,21 +1,27 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.RenderingHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of horizontal rule elements to Markdown.
  */
-public class HorizontalRuleHandler implements ElementHandler {
+public class HorizontalRuleHandler implements RenderingHandler {
 
     @Override
     public boolean canHandle(Element element) {
-        return "hr".equals(element.tagName().toLowerCase());
+        return "hr".equals(element.normalName());
     }
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        return "---\n\n";
+    public void render(Element element, HandlerContext context, MarkdownWriter out) {
+        out.append("---\n\n");
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
@@ -1,33 +1,39 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.RenderingHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of image elements to Markdown.
  */
-public class ImageHandler implements ElementHandler {
+public class ImageHandler implements RenderingHandler {
 
     @Override
     public boolean canHandle(Element element) {
-        return "img".equals(element.tagName().toLowerCase());
+        return "img".equals(element.normalName());
     }
 
     @Override
-    public String handle(Element element, HandlerContext context) {
+    public void render(Element element, HandlerContext context, MarkdownWriter out) {
         String src = element.attr("src");
         String alt = element.attr("alt");
         String title = element.attr("title");
 
         if (src.isEmpty()) {
-            return "";
+            return;
         }
 
+        out.append("![").append(alt).append("](").append(src);
         if (!title.isEmpty()) {
-            return String.format("![%s](%s \"%s\")", alt, src, title);
-        } else {
-            return String.format("![%s](%s)", alt, src);
+            out.append(" \"").append(title).append('"');
         }
+        out.append(')');
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
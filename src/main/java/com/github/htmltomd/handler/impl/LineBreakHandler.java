@@ -1,21 +1,27 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.RenderingHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of line break elements to Markdown.
  */
-public class LineBreakHandler implements ElementHandler {
+public class LineBreakHandler implements RenderingHandler {
 
     @Override
     public boolean canHandle(Element element) {
-        return "br".equals(element.tagName().toLowerCase());
+        return "br".equals(element.normalName());
     }
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        return "  \n";
+    public void render(Element element, HandlerContext context, MarkdownWriter out) {
+        out.append("  \n");
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
@@ -1,33 +1,48 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.TraversalHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of link elements to Markdown.
  */
-public class LinkHandler implements ElementHandler {
+public class LinkHandler implements TraversalHandler {
 
     @Override
     public boolean canHandle(Element element) {
-        return "a".equals(element.tagName().toLowerCase());
+        return "a".equals(element.normalName());
     }
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        String text = context.processChildren(element).trim();
-        String href = element.attr("href");
-        String title = element.attr("title");
+    public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+        // Links without a target are rendered as their text
+        if (!element.attr("href").isEmpty()) {
+            out.append('[');
+        }
+        return true;
+    }
 
+    @Override
+    public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
+        String href = element.attr("href");
         if (href.isEmpty()) {
-            return text;
+            out.trim(start);
+            return;
         }
+        out.trim(start + 1);
 
+        String title = element.attr("title");
+        out.append("](").append(href);
         if (!title.isEmpty()) {
-            return String.format("[%s](%s \"%s\")", text, href, title);
-        } else {
-            return String.format("[%s](%s)", text, href);
+            out.append(" \"").append(title).append('"');
         }
+        out.append(')');
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
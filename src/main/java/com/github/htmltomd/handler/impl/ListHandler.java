@@ -1,114 +1,127 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.TraversalHandler;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.nodes.TextNode;
 
 /**
  * Handles conversion of list elements to Markdown.
  * Supports: ul (unordered lists), ol (ordered lists), li (list items).
+ * <p>
+ * A list writes the marker of each item as a line prefix of the item's output,
+ * with the following lines indented underneath it, see
+ * {@link MarkdownWriter#pushLinePrefix}.
  */
-public class ListHandler implements ElementHandler {
+public class ListHandler implements TraversalHandler {
 
-    @Override
-    public String handle(Element element, HandlerContext context) {
-        String tag = element.tagName().toLowerCase();
+    // State of a list: number of items so far.
+    // State of a list item: flags below.
+    private static final int HAS_OUTPUT = 1;
+    private static final int HAS_CONTENT = 2;
 
-        if (tag.equals("li")) {
-            return handleListItem(element, context);
-        } else {
-            return handleList(element, context, tag.equals("ol"));
+    @Override
+    public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+        // Add newline before top-level lists to separate from previous content
+        if (!isItem(element) && context.getIndentLevel() == 0) {
+            out.append('\n');
         }
+        return true;
     }
 
-    private String handleList(Element element, HandlerContext context, boolean ordered) {
-        StringBuilder result = new StringBuilder();
-
-        // Add newline before top-level lists to separate from previous content
-        if (context.getIndentLevel() == 0) {
-            result.append("\n");
+    @Override
+    public void onText(Element element, TextNode textNode, HandlerContext context, MarkdownWriter out) {
+        if (!isItem(element)) {
+            return;
         }
+        String text = textNode.text().trim();
+        if (!text.isEmpty()) {
+            int state = context.getState();
+            if ((state & HAS_OUTPUT) != 0 && out.lastChar() != '\n') {
+                out.append(' ');
+            }
+            out.append(text);
+            context.setState(state | HAS_OUTPUT | HAS_CONTENT);
+        }
+    }
 
-        Elements items = element.children();
-
-        int index = 1;
-        for (Element item : items) {
-            if ("li".equals(item.tagName().toLowerCase())) {
-                String marker = ordered ? (index++ + ".") : "-";
-                String indent = "  ".repeat(context.getIndentLevel());
+    @Override
+    public boolean onChildElement(Element element, Element child, HandlerContext context, MarkdownWriter out) {
+        String tag = child.normalName();
+        if (isItem(element)) {
+            // Nested lists start on a new line
+            if (tag.equals("ul") || tag.equals("ol")) {
+                out.append('\n');
+                context.setState(context.getState() | HAS_OUTPUT);
+            }
+            return true;
+        }
 
-                // Process list item content
-                context.increaseIndent();
-                String content = context.processElement(item).trim();
-                context.decreaseIndent();
+        // Lists only render their items
+        if (!"li".equals(tag)) {
+            return false;
+        }
+        int index = context.getState() + 1;
+        context.setState(index);
+        String marker = element.normalName().equals("ol") ? (index + ".") : "-";
+        String indent = " ".repeat(context.getIndentLevel() * 2);
+        out.pushLinePrefix(indent + marker + " ", indent + "  ", false);
+        context.increaseIndent();
+        return true;
+    }
 
-                // Skip empty list items
-                if (content.isEmpty()) {
-                    continue;
-                }
+    @Override
+    public void onChildExit(Element element, Element child, HandlerContext context, MarkdownWriter out,
+            int childStart) {
+        if (!isItem(element)) {
+            context.decreaseIndent();
+            // Empty list items are skipped
+            if (out.trim(childStart) > 0) {
+                out.append('\n');
+            }
+            out.popLinePrefix(childStart);
+            return;
+        }
 
-                // Handle nested lists
-                if (content.contains("\n")) {
-                    String[] lines = content.split("\n");
-                    result.append(indent).append(marker).append(" ").append(lines[0]).append("\n");
-                    for (int i = 1; i < lines.length; i++) {
-                        result.append(indent).append("  ").append(lines[i]).append("\n");
-                    }
-                } else {
-                    result.append(indent).append(marker).append(" ").append(content).append("\n");
+        int state = context.getState();
+        String tag = child.normalName();
+        if (tag.equals("p") || tag.equals("section")) {
+            // For paragraphs/sections in list items, add line breaks between them
+            if (out.trim(childStart) > 0) {
+                if ((state & (HAS_OUTPUT | HAS_CONTENT)) == (HAS_OUTPUT | HAS_CONTENT)) {
+                    // Add double space + newline for proper line break in Markdown list
+                    out.insert(childStart, "  \n");
                 }
+                state |= HAS_CONTENT;
+            }
+        } else if (!tag.equals("ul") && !tag.equals("ol")) {
+            if (out.isBlank(childStart)) {
+                out.setLength(childStart);
+            } else {
+                state |= HAS_CONTENT;
             }
         }
+        if (out.length() > childStart) {
+            state |= HAS_OUTPUT;
+        }
+        context.setState(state);
+    }
 
+    @Override
+    public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
         // Add blank line after list if at top level
-        if (context.getIndentLevel() == 0) {
-            result.append("\n");
+        if (!isItem(element) && context.getIndentLevel() == 0) {
+            out.append('\n');
         }
-
-        return result.toString();
     }
 
-    private String handleListItem(Element element, HandlerContext context) {
-        StringBuilder result = new StringBuilder();
-        boolean firstElement = true;
-
-        for (org.jsoup.nodes.Node node : element.childNodes()) {
-            if (node instanceof org.jsoup.nodes.TextNode textNode) {
-                String text = textNode.text().trim();
-                if (!text.isEmpty()) {
-                    if (result.length() > 0 && !result.toString().endsWith("\n")) {
-                        result.append(" ");
-                    }
-                    result.append(text);
-                    firstElement = false;
-                }
-            } else if (node instanceof Element childElement) {
-                String tag = childElement.tagName().toLowerCase();
-                // Handle nested lists specially
-                if (tag.equals("ul") || tag.equals("ol")) {
-                    result.append("\n").append(context.processElement(childElement));
-                } else if (tag.equals("p") || tag.equals("section")) {
-                    // For paragraphs/sections in list items, add line breaks between them
-                    String pContent = context.processElement(childElement).trim();
-                    if (!pContent.isEmpty()) {
-                        if (!firstElement && result.length() > 0) {
-                            // Add double space + newline for proper line break in Markdown list
-                            result.append("  \n");
-                        }
-                        result.append(pContent);
-                        firstElement = false;
-                    }
-                } else {
-                    String content = context.processElement(childElement);
-                    if (!content.trim().isEmpty()) {
-                        result.append(content);
-                        firstElement = false;
-                    }
-                }
-            }
-        }
+    private static boolean isItem(Element element) {
+        return "li".equals(element.normalName());
+    }
 
-        return result.toString();
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
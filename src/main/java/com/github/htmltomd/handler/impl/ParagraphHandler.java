@@ -1,20 +1,30 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.TraversalHandler;
 import org.jsoup.nodes.Element;
 
 /**
  * Handles conversion of paragraph elements to Markdown.
  */
-public class ParagraphHandler implements ElementHandler {
+public class ParagraphHandler implements TraversalHandler {
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        String text = context.processChildren(element).trim();
-        if (text.isEmpty()) {
-            return "";
+    public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+        return true;
+    }
+
+    @Override
+    public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
+        if (out.trim(start) == 0) {
+            return;
         }
-        return text + "\n\n";
+        out.append("\n\n");
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
@@ -0,0 +1,383 @@
+package com.github.htmltomd.handler.impl;
+
+import com.github.htmltomd.TableOverflow;
+import com.github.htmltomd.handler.MarkdownWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cells of a table laid out on a grid, stored column by column.
+ * <p>
+ * Cells are added row by row in document order. A cell spanning several
+ * columns or rows takes the first slot; the other slots it covers stay empty,
+ * as Markdown tables cannot span cells, and later cells move past them.
+ * <p>
+ * Rows are kept until they are written. A buffered table is written at the
+ * end, with as many columns as its widest row. A streamed table fixes its
+ * column count from the rows added so far, see {@link #startStreaming}, and
+ * then writes each row as soon as it is complete.
+ */
+final class TableGrid {
+
+    /**
+     * Alignment of a column.
+     */
+    enum Align {
+        NONE, LEFT, CENTER, RIGHT
+    }
+
+    // HTML limits spans to these values
+    private static final int MAX_COLSPAN = 1000;
+    private static final int MAX_ROWSPAN = 65534;
+
+    // Cell text by column and row, starting at row base; null for slots
+    // without a cell
+    private final List<List<String>> columns = new ArrayList<>();
+    private final List<Align> aligns = new ArrayList<>();
+    // Per column, the first row not covered by a row span from above
+    private int[] spannedUntil = new int[8];
+    private int rows = 0;
+    private int base = 0;
+    private int col = 0;
+    // The end of the cells of the current row and whether any has text
+    private int rowEnd = 0;
+    private boolean rowHasText;
+    // Columns of the rows not written yet, see getColumnCount(), and of the
+    // rows added before the end of the head, which count without text
+    private int columnCount = 0;
+    private int headColumnCount = 0;
+    private boolean inHead = true;
+    // Least length of the rows not written yet: the text of all of them, and
+    // " | " per column of those before the current row that have text
+    private long minLength = 0;
+
+    // Rows that are written even without text
+    private int headerRows = 0;
+    private final boolean aligned;
+    // Set once writing started: the column count of streamed tables (-1 while
+    // buffered), the column widths of aligned tables, and whether the header
+    // was written
+    private int columnLimit = -1;
+    private TableOverflow overflow;
+    private int[] widths;
+    private boolean separated;
+
+    /**
+     * Creates an empty grid.
+     *
+     * @param aligned true to pad columns to the same width and mark their
+     *                alignment in the separator row
+     */
+    TableGrid(boolean aligned) {
+        this.aligned = aligned;
+    }
+
+    /**
+     * Marks the rows added so far as the head of the table. Head rows are
+     * written even if they have no text.
+     */
+    void endHead() {
+        headerRows = rows;
+        columnCount = Math.max(columnCount, headColumnCount);
+        inHead = false;
+    }
+
+    /**
+     * Starts a new row.
+     */
+    void startRow() {
+        if (rowHasText) {
+            minLength += 3L * rowEnd;
+        }
+        rows++;
+        col = 0;
+        rowEnd = 0;
+        rowHasText = false;
+    }
+
+    /**
+     * Adds a cell to the current row.
+     *
+     * @param text    the cell text
+     * @param colspan the number of columns the cell spans
+     * @param rowspan the number of rows the cell spans
+     * @param align   the alignment the cell declares
+     */
+    void addCell(String text, int colspan, int rowspan, Align align) {
+        int row = rows - 1;
+        while (col < spannedUntil.length && spannedUntil[col] > row) {
+            col++;
+        }
+        colspan = Math.max(1, Math.min(colspan, MAX_COLSPAN));
+        rowspan = Math.max(1, Math.min(rowspan, MAX_ROWSPAN));
+
+        if (columnLimit > 0 && overflow != TableOverflow.KEEP && col + colspan > columnLimit) {
+            if (col >= columnLimit) {
+                if (overflow == TableOverflow.MERGE && !text.isEmpty()) {
+                    String last = get(columnLimit - 1, row);
+                    set(columnLimit - 1, row, last.isEmpty() ? text : last + " " + text);
+                    minLength += text.length();
+                }
+                col += colspan;
+                return;
+            }
+            colspan = columnLimit - col;
+        }
+
+        set(col, row, text);
+        minLength += text.length();
+        if (aligns.get(col) == Align.NONE) {
+            aligns.set(col, align);
+        }
+        for (int i = 1; i < colspan; i++) {
+            set(col + i, row, "");
+        }
+        if (rowspan > 1) {
+            if (col + colspan > spannedUntil.length) {
+                spannedUntil = Arrays.copyOf(spannedUntil, Math.max(col + colspan, spannedUntil.length * 2));
+            }
+            Arrays.fill(spannedUntil, col, col + colspan, row + rowspan);
+        }
+        col += colspan;
+    }
+
+    private void set(int column, int row, String text) {
+        while (columns.size() <= column) {
+            columns.add(new ArrayList<>());
+            aligns.add(Align.NONE);
+        }
+        List<String> cells = columns.get(column);
+        while (cells.size() <= row - base) {
+            cells.add(null);
+        }
+        cells.set(row - base, text);
+
+        rowEnd = Math.max(rowEnd, column + 1);
+        rowHasText |= !text.isEmpty();
+        if (rowHasText) {
+            columnCount = Math.max(columnCount, rowEnd);
+        }
+        if (inHead) {
+            headColumnCount = Math.max(headColumnCount, rowEnd);
+        }
+    }
+
+    /**
+     * Gets the number of rows added.
+     *
+     * @return the number of rows
+     */
+    int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns of the rows not written yet: up to the last
+     * cell in any of them. Rows that will be left out do not count.
+     *
+     * @return the number of columns
+     */
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Gets a lower bound on the length of the rows not written yet, which
+     * grows with the cells added.
+     *
+     * @return the least number of characters still to be written
+     */
+    long getMinLength() {
+        return minLength + (rowHasText ? 3L * rowEnd : 0);
+    }
+
+    /**
+     * Gets the text of a cell.
+     *
+     * @return the text, or "" if no cell covers the slot
+     */
+    String get(int column, int row) {
+        if (column >= columns.size()) {
+            return "";
+        }
+        List<String> cells = columns.get(column);
+        String text = row - base < cells.size() ? cells.get(row - base) : null;
+        return text != null ? text : "";
+    }
+
+    /**
+     * Gets the number of columns up to the last cell of a row.
+     */
+    private int length(int row) {
+        for (int c = columns.size() - 1; c >= 0; c--) {
+            List<String> cells = columns.get(c);
+            if (row - base < cells.size() && cells.get(row - base) != null) {
+                return c + 1;
+            }
+        }
+        return 0;
+    }
+
+    private boolean isWritten(int row) {
+        if (row < headerRows) {
+            return true;
+        }
+        for (int c = 0; c < columns.size(); c++) {
+            if (!get(c, row).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fixes the column count and widths from the rows added so far, writes
+     * them and from then on writes rows as they are completed, see
+     * {@link #flush}.
+     *
+     * @param overflow what to do with cells beyond the column count
+     * @param out      the output buffer
+     */
+    void startStreaming(TableOverflow overflow, MarkdownWriter out) {
+        this.columnLimit = getColumnCount();
+        this.overflow = overflow;
+        flush(out);
+    }
+
+    /**
+     * Checks if the column count is fixed and rows are written as they are
+     * completed.
+     *
+     * @return true if streaming
+     */
+    boolean isStreaming() {
+        return columnLimit >= 0;
+    }
+
+    /**
+     * Writes the rows added so far and forgets them. Rows without text after
+     * the head rows are left out; the first row written is the header.
+     *
+     * @param out the output buffer
+     */
+    void flush(MarkdownWriter out) {
+        int columnCount = columnLimit >= 0 ? columnLimit : getColumnCount();
+        if (aligned && widths == null) {
+            widths = new int[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                widths[c] = 3;
+                for (int r = base; r < rows; r++) {
+                    if (isWritten(r)) {
+                        widths[c] = Math.max(widths[c], displayWidth(get(c, r)));
+                    }
+                }
+            }
+        }
+
+        for (int r = base; r < rows; r++) {
+            if (!isWritten(r)) {
+                continue;
+            }
+            writeRow(r, Math.max(columnCount, length(r)), out);
+            if (!separated) {
+                writeSeparator(columnCount, out);
+                separated = true;
+            }
+        }
+
+        base = rows;
+        for (List<String> cells : columns) {
+            cells.clear();
+        }
+        minLength = 0;
+        rowEnd = 0;
+        rowHasText = false;
+        columnCount = 0;
+        headColumnCount = 0;
+    }
+
+    /**
+     * Writes the rows not written yet and ends the table.
+     *
+     * @param out the output buffer
+     */
+    void finish(MarkdownWriter out) {
+        flush(out);
+        if (separated) {
+            out.append("\n");
+        }
+    }
+
+    private void writeRow(int row, int columnCount, MarkdownWriter out) {
+        if (widths == null) {
+            out.append("| ");
+            for (int c = 0; c < columnCount; c++) {
+                out.append(get(c, row)).append(" | ");
+            }
+            out.append("\n");
+            return;
+        }
+
+        out.append('|');
+        for (int c = 0; c < columnCount; c++) {
+            String text = get(c, row);
+            int padding = c < widths.length ? Math.max(0, widths[c] - displayWidth(text)) : 0;
+            int before = switch (aligns.get(c)) {
+                case RIGHT -> padding;
+                case CENTER -> padding / 2;
+                default -> 0;
+            };
+            out.append(' ').repeat(' ', before).append(text).repeat(' ', padding - before).append(" |");
+        }
+        out.append("\n");
+    }
+
+    private void writeSeparator(int columnCount, MarkdownWriter out) {
+        if (widths == null) {
+            out.append("|");
+            for (int c = 0; c < columnCount; c++) {
+                out.append("-------|");
+            }
+            out.append("\n");
+            return;
+        }
+
+        out.append('|');
+        for (int c = 0; c < columnCount; c++) {
+            Align align = aligns.get(c);
+            boolean left = align == Align.LEFT || align == Align.CENTER;
+            boolean right = align == Align.RIGHT || align == Align.CENTER;
+            out.append(' ').append(left ? ":" : "-")
+                    .repeat('-', widths[c] - 2)
+                    .append(right ? ":" : "-").append(" |");
+        }
+        out.append("\n");
+    }
+
+    /**
+     * Gets the width of text in a monospaced font, counting East Asian wide
+     * characters as two columns.
+     */
+    static int displayWidth(String text) {
+        int width = 0;
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            width += isWide(c) ? 2 : 1;
+        }
+        return width;
+    }
+
+    private static boolean isWide(int c) {
+        return (c >= 0x1100 && c <= 0x115F)
+                || (c >= 0x2E80 && c <= 0xA4CF)
+                || (c >= 0xAC00 && c <= 0xD7A3)
+                || (c >= 0xF900 && c <= 0xFAFF)
+                || (c >= 0xFE30 && c <= 0xFE4F)
+                || (c >= 0xFF00 && c <= 0xFF60)
+                || (c >= 0xFFE0 && c <= 0xFFE6)
+                || (c >= 0x20000 && c <= 0x3FFFD);
+    }
+}
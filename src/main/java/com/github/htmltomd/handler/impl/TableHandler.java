@@ -1,128 +1,160 @@
 package com.github.htmltomd.handler.impl;
 
-import com.github.htmltomd.handler.ElementHandler;
+import com.github.htmltomd.ConverterConfig;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
+import com.github.htmltomd.handler.RenderingHandler;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Handles conversion of table elements to Markdown.
- * Supports: table, thead, tbody, tr, th, td.
+ * Supports: table, thead, tbody, tfoot, tr, th, td.
+ * <p>
+ * Rows and cells are found among the direct children of the table and its
+ * row groups, so rows of nested tables are not mixed into the table. Rows of
+ * the head come first and rows of the foot last; without a head, the first row
+ * is the header. Cells are placed on a grid following their colspan and
+ * rowspan.
+ * <p>
+ * With {@link com.github.htmltomd.ConverterConfig#getStreamingTableRows()}
+ * set, tables with more rows take their column count from the first rows and
+ * write every following row as soon as it is rendered, instead of keeping all
+ * cells until the end of the table.
+ * <p>
+ * Once the rows added so far would take the output over the output limit,
+ * see {@link MarkdownWriter#isFull(long)}, no more cells are added.
  */
-public class TableHandler implements ElementHandler {
+public class TableHandler implements RenderingHandler {
 
     @Override
     public boolean canHandle(Element element) {
-        return "table".equals(element.tagName().toLowerCase());
+        return "table".equals(element.normalName());
     }
 
     @Override
-    public String handle(Element element, HandlerContext context) {
-        List<List<String>> rows = new ArrayList<>();
-        boolean hasHeader = false;
-
-        // Process thead
-        Elements theadRows = element.select("thead > tr");
-        if (!theadRows.isEmpty()) {
-            hasHeader = true;
-            for (Element row : theadRows) {
-                rows.add(extractCells(row, context));
+    public void render(Element element, HandlerContext context, MarkdownWriter out) {
+        List<Element> head = new ArrayList<>();
+        List<Element> body = new ArrayList<>();
+        List<Element> foot = new ArrayList<>();
+        for (Element child : element.children()) {
+            switch (child.normalName()) {
+                case "thead" -> head.add(child);
+                case "tbody" -> body.add(child);
+                case "tfoot" -> foot.add(child);
+                case "tr" -> body.add(child);
+                default -> {
+                    // caption, colgroup and anything else is left out
+                }
             }
         }
 
-        // Process tbody or direct tr
-        Elements tbodyRows = element.select("tbody > tr");
-        if (tbodyRows.isEmpty()) {
-            tbodyRows = element.select("tr");
-        }
-
-        for (Element row : tbodyRows) {
-            // Skip if already processed in thead
-            if (hasHeader && row.parent() != null &&
-                    "thead".equals(row.parent().tagName().toLowerCase())) {
-                continue;
+        // A table is a block of its own, even where the parser leaves it in a
+        // paragraph
+        int start = out.length();
+        int blockStart = start;
+        if (start > 0 && out.lastChar() != '\n') {
+            while (out.lastChar() == ' ') {
+                out.setLength(out.length() - 1);
             }
-            List<String> cells = extractCells(row, context);
-            // Skip completely empty rows (all cells are empty)
-            if (!isRowEmpty(cells)) {
-                rows.add(cells);
-            }
-        }
-
-        if (rows.isEmpty()) {
-            return "";
-        }
-
-        // If no header, treat first row as header
-        if (!hasHeader && !rows.isEmpty()) {
-            hasHeader = true;
+            blockStart = out.length();
+            out.append("\n\n");
         }
-
-        return formatTable(rows, hasHeader);
-    }
-
-    private List<String> extractCells(Element row, HandlerContext context) {
-        List<String> cells = new ArrayList<>();
-        Elements cellElements = row.select("th, td");
-
-        for (Element cell : cellElements) {
-            String content = context.processChildren(cell).trim();
-            // Remove newlines from cell content
-            content = content.replace("\n", " ");
-            cells.add(content);
+        TableGrid grid = new TableGrid(context.getConfig().isAlignTables());
+        addRows(head, grid, context, out);
+        grid.endHead();
+        addRows(body, grid, context, out);
+        addRows(foot, grid, context, out);
+        grid.finish(out);
+        if (out.isBlank(blockStart)) {
+            // Nothing written, so the text before it is left as it was
+            out.setLength(blockStart);
+            out.repeat(' ', start - blockStart);
         }
-
-        return cells;
     }
 
     /**
-     * Checks if a row is completely empty (all cells have no content).
+     * Adds rows, given as tr elements or row groups, to the grid.
      */
-    private boolean isRowEmpty(List<String> cells) {
-        return cells.stream().allMatch(String::isEmpty);
+    private void addRows(List<Element> rows, TableGrid grid, HandlerContext context, MarkdownWriter out) {
+        for (Element row : rows) {
+            if ("tr".equals(row.normalName())) {
+                addRow(row, grid, context, out);
+            } else {
+                for (Element child : row.children()) {
+                    if ("tr".equals(child.normalName())) {
+                        addRow(child, grid, context, out);
+                    }
+                }
+            }
+        }
     }
 
-    private String formatTable(List<List<String>> rows, boolean hasHeader) {
-        if (rows.isEmpty()) {
-            return "";
+    private void addRow(Element row, TableGrid grid, HandlerContext context, MarkdownWriter out) {
+        if (out.isFull(grid.getMinLength())) {
+            return;
+        }
+        ConverterConfig config = context.getConfig();
+        if (grid.isStreaming()) {
+            grid.flush(out);
+        } else if (config.getStreamingTableRows() > 0 && grid.getRowCount() >= config.getStreamingTableRows()
+                && grid.getColumnCount() > 0) {
+            grid.startStreaming(config.getTableOverflow(), out);
         }
 
-        // Calculate column widths
-        int maxCols = rows.stream().mapToInt(List::size).max().orElse(0);
-
-        StringBuilder result = new StringBuilder();
-
-        // Header row
-        List<String> headerRow = rows.get(0);
-        result.append("| ");
-        for (int i = 0; i < maxCols; i++) {
-            String cell = i < headerRow.size() ? headerRow.get(i) : "";
-            result.append(cell).append(" | ");
+        grid.startRow();
+        for (Element cell : row.children()) {
+            String tag = cell.normalName();
+            if (!tag.equals("td") && !tag.equals("th")) {
+                continue;
+            }
+            if (out.isFull(grid.getMinLength())) {
+                break;
+            }
+            // Render the cell at the end of the buffer and take it back out
+            int start = out.length();
+            context.renderChildren(cell, out);
+            out.trim(start);
+            // Remove newlines from cell content
+            String content = out.cut(start).replace('\n', ' ');
+            grid.addCell(content, span(cell, "colspan"), span(cell, "rowspan"), align(cell, context));
         }
-        result.append("\n");
+    }
 
-        // Separator row
-        result.append("|");
-        for (int i = 0; i < maxCols; i++) {
-            result.append("-------|");
+    private static int span(Element cell, String attribute) {
+        String value = cell.attr(attribute).trim();
+        if (value.isEmpty()) {
+            return 1;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 1;
         }
-        result.append("\n");
+    }
 
-        // Data rows
-        for (int rowIdx = hasHeader ? 1 : 0; rowIdx < rows.size(); rowIdx++) {
-            List<String> row = rows.get(rowIdx);
-            result.append("| ");
-            for (int i = 0; i < maxCols; i++) {
-                String cell = i < row.size() ? row.get(i) : "";
-                result.append(cell).append(" | ");
-            }
-            result.append("\n");
+    /**
+     * Gets the alignment a cell declares with the align attribute or a
+     * text-align style.
+     */
+    private static TableGrid.Align align(Element cell, HandlerContext context) {
+        String value = context.getStyle(cell).get("text-align");
+        if (value == null) {
+            value = cell.attr("align");
         }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "left", "start" -> TableGrid.Align.LEFT;
+            case "center" -> TableGrid.Align.CENTER;
+            case "right", "end" -> TableGrid.Align.RIGHT;
+            default -> TableGrid.Align.NONE;
+        };
+    }
 
-        result.append("\n");
-        return result.toString();
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 }
@@ -1,5 +1,8 @@
 package com.github.htmltomd.util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * Utility class for Markdown text processing and formatting.
  */
@@ -9,6 +12,33 @@ public class MarkdownUtils {
         // Utility class
     }
 
+    /**
+     * Where escaped text is going to be placed; each mode escapes only the
+     * characters that are significant there.
+     */
+    public enum EscapeMode {
+        /** Running text: all characters with a meaning in Markdown. */
+        INLINE_TEXT("\\`*_{}[]()#+-.!|"),
+        /** The text of a link or image: emphasis, code and brackets. */
+        LINK_TEXT("\\`*_[]"),
+        /** A link or image destination: parentheses. */
+        URL("\\()"),
+        /** Text in a table cell: the column separator. */
+        TABLE_CELL("\\|");
+
+        private final boolean[] special = new boolean[128];
+
+        EscapeMode(String chars) {
+            for (int i = 0; i < chars.length(); i++) {
+                special[chars.charAt(i)] = true;
+            }
+        }
+
+        private boolean isSpecial(char c) {
+            return c < 128 && special[c];
+        }
+    }
+
     /**
      * Escapes special Markdown characters in text.
      * 
@@ -16,27 +46,99 @@ public class MarkdownUtils {
      * @return escaped text
      */
     public static String escape(String text) {
-        if (text == null || text.isEmpty()) {
+        return escape(text, EscapeMode.INLINE_TEXT);
+    }
+
+    /**
+     * Escapes the characters that are special in the given context.
+     * 
+     * @param text the text to escape
+     * @param mode where the text is going to be placed
+     * @return escaped text, or {@code text} itself if nothing needs escaping
+     */
+    public static String escape(String text, EscapeMode mode) {
+        if (text == null) {
+            return null;
+        }
+        int first = indexOfSpecial(text, mode);
+        if (first < 0) {
             return text;
         }
 
-        // Escape special Markdown characters
-        return text.replace("\\", "\\\\")
-                .replace("`", "\\`")
-                .replace("*", "\\*")
-                .replace("_", "\\_")
-                .replace("{", "\\{")
-                .replace("}", "\\}")
-                .replace("[", "\\[")
-                .replace("]", "\\]")
-                .replace("(", "\\(")
-                .replace(")", "\\)")
-                .replace("#", "\\#")
-                .replace("+", "\\+")
-                .replace("-", "\\-")
-                .replace(".", "\\.")
-                .replace("!", "\\!")
-                .replace("|", "\\|");
+        StringBuilder out = new StringBuilder(text.length() + 16);
+        out.append(text, 0, first);
+        try {
+            appendEscaped(text, first, mode, out);
+        } catch (IOException e) {
+            // Not thrown by StringBuilder
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Escapes special Markdown characters in running text, appending the result
+     * to an output buffer.
+     * 
+     * @param text the text to escape
+     * @param out  where to append the escaped text
+     */
+    public static void escape(CharSequence text, Appendable out) {
+        escape(text, EscapeMode.INLINE_TEXT, out);
+    }
+
+    /**
+     * Escapes the characters that are special in the given context, appending
+     * the result to an output buffer.
+     * 
+     * @param text the text to escape
+     * @param mode where the text is going to be placed
+     * @param out  where to append the escaped text
+     * @throws UncheckedIOException if appending fails
+     */
+    public static void escape(CharSequence text, EscapeMode mode, Appendable out) {
+        try {
+            appendEscaped(text, 0, mode, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int indexOfSpecial(CharSequence text, EscapeMode mode) {
+        for (int i = 0; i < text.length(); i++) {
+            if (mode.isSpecial(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendEscaped(CharSequence text, int start, EscapeMode mode, Appendable out)
+            throws IOException {
+        int from = start;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (mode.isSpecial(c)) {
+                out.append(text, from, i).append('\\').append(c);
+                from = i + 1;
+            }
+        }
+        out.append(text, from, text.length());
+    }
+
+    /**
+     * Checks if a character is whitespace for the purpose of normalizing text:
+     * ASCII whitespace, the no-break space and the other Unicode space
+     * separators such as the ideographic space.
+     * 
+     * @param c the character
+     * @return true if the character is whitespace
+     */
+    public static boolean isWhitespace(char c) {
+        if (c <= ' ') {
+            return c == ' ' || (c >= '\t' && c <= '\r');
+        }
+        return c >= '\u0080' && Character.isSpaceChar(c);
     }
 
     /**
@@ -44,13 +146,50 @@ public class MarkdownUtils {
      * Converts multiple spaces to single space and trims.
      * 
      * @param text the text to normalize
-     * @return normalized text
+     * @return normalized text, or {@code text} itself if it was already
+     *         normalized
      */
     public static String normalizeWhitespace(String text) {
         if (text == null) {
             return "";
         }
-        return text.replaceAll("\\s+", " ").trim();
+
+        int length = text.length();
+        int start = 0;
+        while (start < length && isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        int end = length;
+        while (end > start && isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+
+        StringBuilder out = null;
+        int from = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isWhitespace(c)) {
+                continue;
+            }
+            // A single space is kept as it is; anything else becomes one space
+            int runEnd = i + 1;
+            while (isWhitespace(text.charAt(runEnd))) {
+                runEnd++;
+            }
+            if (c != ' ' || runEnd > i + 1) {
+                if (out == null) {
+                    out = new StringBuilder(end - start);
+                }
+                out.append(text, from, i).append(' ');
+                from = runEnd;
+            }
+            i = runEnd - 1;
+        }
+
+        if (out == null) {
+            return start == 0 && end == length ? text : text.substring(start, end);
+        }
+        return out.append(text, from, end).toString();
     }
 
     /**
@@ -58,15 +197,28 @@ public class MarkdownUtils {
      * 
      * @param text  the text
      * @param count the number of newlines
-     * @return text with trailing newlines
+     * @return text with trailing newlines, or {@code text} itself if it already
+     *         ended with exactly that many
      */
     public static String ensureTrailingNewlines(String text, int count) {
         if (text == null) {
             return "\n".repeat(count);
         }
 
-        String trimmed = text.replaceAll("\\n+$", "");
-        return trimmed + "\n".repeat(count);
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (text.length() - end == count) {
+            return text;
+        }
+
+        StringBuilder out = new StringBuilder(end + count);
+        out.append(text, 0, end);
+        for (int i = 0; i < count; i++) {
+            out.append('\n');
+        }
+        return out.toString();
     }
 
     /**
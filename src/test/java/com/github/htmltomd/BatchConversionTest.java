@@ -0,0 +1,98 @@
+package com.github.htmltomd;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for batch and asynchronous conversion.
+ */
+class BatchConversionTest {
+
+    @Test
+    void testConvertAllKeepsOrder() {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        List<String> documents = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            documents.add("<h2>Doc " + i + "</h2><p>Text <b>" + i + "</b></p>");
+        }
+
+        List<ConversionResult> results = converter.convertAll(documents);
+
+        assertEquals(documents.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ConversionResult result = results.get(i);
+            assertTrue(result.isSuccess());
+            assertEquals(i, result.getIndex());
+            assertEquals(converter.convert(documents.get(i)), result.getMarkdown());
+        }
+    }
+
+    @Test
+    void testErrorsAreCapturedPerDocument() {
+        ConverterConfig config = ConverterConfig.builder()
+                .addCustomHandler("boom", (element, context) -> {
+                    throw new IllegalStateException("boom");
+                })
+                .build();
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(config);
+
+        List<ConversionResult> results = converter.convertAll(List.of("<p>ok</p>", "<boom></boom>", "<p>fine</p>"));
+
+        assertEquals("ok\n", results.get(0).getMarkdown());
+        assertFalse(results.get(1).isSuccess());
+        assertNull(results.get(1).getMarkdown());
+        assertInstanceOf(IllegalStateException.class, results.get(1).getError());
+        assertEquals("fine\n", results.get(2).getMarkdown());
+    }
+
+    @Test
+    void testConvertAllStreamIsLazyAndBounded() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                    .executor(executor)
+                    .maxConcurrency(3)
+                    .build());
+            AtomicInteger produced = new AtomicInteger();
+            Stream<String> documents = IntStream.range(0, 1_000_000)
+                    .mapToObj(i -> {
+                        produced.incrementAndGet();
+                        return "<p>" + i + "</p>";
+                    });
+
+            List<String> first = converter.convertAll(documents)
+                    .limit(10)
+                    .map(ConversionResult::getMarkdown)
+                    .collect(Collectors.toList());
+
+            assertEquals("0\n", first.get(0));
+            assertEquals("9\n", first.get(9));
+            // Only the window of in-flight documents was read ahead
+            assertTrue(produced.get() <= 10 + 3, "read " + produced.get() + " documents");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConvertAsync() throws ExecutionException, InterruptedException {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        assertEquals("**bold**\n", converter.convertAsync("<b>bold</b>").get());
+    }
+
+    @Test
+    void testMaxConcurrencyMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> ConverterConfig.builder().maxConcurrency(0));
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.htmltomd;
+
+import com.github.htmltomd.handler.ElementHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for sharing one converter between threads.
+ */
+class ConcurrentConversionTest {
+
+    private static final String[] GOLDEN = {
+            "blog-post", "nested-lists", "blockquotes", "tables", "code-heavy", "fenced-markdown",
+            "headings", "spans", "wechat", "scripts", "whitespace", "links-images"
+    };
+
+    @Test
+    void testSharedConverterAcrossThreads() throws Exception {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        List<String> html = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (String name : GOLDEN) {
+            html.add(GoldenOutputTest.read(name + ".html"));
+            expected.add(GoldenOutputTest.read(name + ".md"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < 64; t++) {
+                int offset = t;
+                Callable<Void> task = () -> {
+                    for (int i = 0; i < 50; i++) {
+                        int doc = (offset + i) % GOLDEN.length;
+                        if (i % 5 == 0) {
+                            StringWriter out = new StringWriter();
+                            converter.convert(new StringReader(html.get(doc)), out);
+                            assertEquals(expected.get(doc), out.toString(), GOLDEN[doc]);
+                        } else {
+                            assertEquals(expected.get(doc), converter.convert(html.get(doc)), GOLDEN[doc]);
+                        }
+                    }
+                    return null;
+                };
+                futures.add(executor.submit(task));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testStateIsResetBetweenConversions() {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        String html = "<ul><li>One<ul><li>Two</li></ul></li></ul>";
+        String first = converter.convert(html);
+        assertEquals(first, converter.convert(html));
+        assertEquals("Plain\n", converter.convert("<p>Plain</p>"));
+    }
+
+    @Test
+    void testNestedConversionOnSameThread() {
+        HtmlToMarkdownConverter inner = new HtmlToMarkdownConverter();
+        HtmlToMarkdownConverter[] outer = new HtmlToMarkdownConverter[1];
+        // A handler that converts its own HTML with the converter that is running it
+        ElementHandler embed = (element, context) ->
+                "[" + outer[0].convert(element.attr("data-html")).trim() + "]";
+        outer[0] = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .addCustomHandler("x-embed", embed)
+                .build());
+
+        String result = outer[0].convert(
+                "<p>Before <x-embed data-html=\"&lt;b&gt;bold&lt;/b&gt;\"></x-embed> after</p>");
+        assertEquals("Before [**bold**] after\n", result);
+        assertEquals("**bold**\n", inner.convert("<b>bold</b>"));
+    }
+
+    @Test
+    void testLargeDocumentThenSmall() throws IOException {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 120_000; i++) {
+            html.append("<p>Paragraph ").append(i).append("</p>");
+        }
+        String large = converter.convert(html.toString());
+        assertTrue(large.length() > ConversionState.MAX_RETAINED_CAPACITY);
+        assertEquals("Small\n", converter.convert("<p>Small</p>"));
+    }
+
+    @Test
+    void testParallelConversionOfLargeDocument() {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            html.append("<h2>Section ").append(i).append("</h2><p>Text <em>").append(i).append("</em></p>")
+                    .append("<ul><li>Item<ul><li>Nested ").append(i).append("</li></ul></li></ul>\n");
+        }
+        String sequential = new HtmlToMarkdownConverter().convert(html.toString());
+        HtmlToMarkdownConverter parallel = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .parallelChunkSize(64)
+                .build());
+        assertEquals(sequential, parallel.convert(html.toString()));
+    }
+}
@@ -0,0 +1,244 @@
+package com.github.htmltomd;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ConversionCache.
+ */
+class ConversionCacheTest {
+
+    @Test
+    void testHitsAndMisses() {
+        ConversionCache cache = new ConversionCache(1 << 20);
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .build());
+
+        String first = converter.convert("<h1>Title</h1>");
+        String second = converter.convert("<h1>Title</h1>");
+
+        assertEquals("# Title\n", first);
+        assertSame(first, second);
+        ConversionCache.Stats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void testConfigurationsDoNotShareResults() {
+        ConversionCache cache = new ConversionCache(1 << 20);
+        HtmlToMarkdownConverter plain = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .build());
+        HtmlToMarkdownConverter preserving = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .preserveTag("sup")
+                .build());
+        HtmlToMarkdownConverter plainAgain = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .build());
+
+        String html = "<p>x<sup>2</sup></p>";
+        assertEquals("x2\n", plain.convert(html));
+        assertEquals("x<sup>2</sup>\n", preserving.convert(html));
+        // Equal configurations share entries
+        assertEquals("x2\n", plainAgain.convert(html));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(2, cache.stats().getSize());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        // Room for two small entries
+        ConversionCache cache = new ConversionCache(2 * (96 + 2 * 40));
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .build());
+
+        converter.convert("<p>first</p>");
+        converter.convert("<p>second</p>");
+        converter.convert("<p>first</p>"); // hit, now most recently used
+        converter.convert("<p>third</p>"); // evicts second
+
+        ConversionCache.Stats stats = cache.stats();
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getSize());
+        assertTrue(stats.getBytes() <= 2 * (96 + 2 * 40));
+
+        converter.convert("<p>first</p>");
+        assertEquals(2, cache.stats().getHits());
+        converter.convert("<p>second</p>");
+        assertEquals(2, cache.stats().getHits());
+    }
+
+    @Test
+    void testOversizedResultsAreNotCached() {
+        ConversionCache cache = new ConversionCache(100);
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .build());
+
+        assertEquals("A longer paragraph of text\n", converter.convert("<p>A longer paragraph of text</p>"));
+        assertEquals(0, cache.stats().getSize());
+        assertEquals(0, cache.stats().getBytes());
+    }
+
+    @Test
+    void testInvalidate() {
+        ConversionCache cache = new ConversionCache(1 << 20);
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .build());
+        converter.convert("<p>one</p>");
+        converter.convert("<p>two</p>");
+
+        cache.invalidate("<p>one</p>");
+        assertEquals(1, cache.stats().getSize());
+        cache.invalidateAll();
+        assertEquals(0, cache.stats().getSize());
+        assertEquals(0, cache.stats().getBytes());
+
+        converter.convert("<p>two</p>");
+        assertEquals(0, cache.stats().getHits());
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        ConversionCache cache = new ConversionCache(8 * 1024);
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .cache(cache)
+                .build());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        int n = (seed * 7 + i) % 100;
+                        assertEquals("Item **" + n + "**\n", converter.convert("<p>Item <b>" + n + "</b></p>"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        ConversionCache.Stats stats = cache.stats();
+        assertEquals(16_000, stats.getHits() + stats.getMisses());
+        assertTrue(stats.getBytes() <= 8 * 1024);
+    }
+
+    @Test
+    void testMaxBytesMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ConversionCache(0));
+    }
+
+    @Test
+    void testFragmentCacheReusesRepeatedSubtrees() {
+        ConversionCache fragments = new ConversionCache(1 << 20);
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .fragmentCache(fragments)
+                .minFragmentNodes(8)
+                .build());
+        String nav = "<nav><ul><li><a href=\"/\">Home</a></li><li><a href=\"/blog\">Blog</a></li>"
+                + "<li><a href=\"/about\">About</a></li></ul></nav>";
+
+        String first = converter.convert(nav + "<p>First article</p>");
+        String second = converter.convert(nav + "<p>Second article</p>");
+
+        assertEquals("- [Home](/)\n- [Blog](/blog)\n- [About](/about)\n\nFirst article\n", first);
+        assertEquals("- [Home](/)\n- [Blog](/blog)\n- [About](/about)\n\nSecond article\n", second);
+        // Only the nav and its list are large enough to be cached, and the
+        // second lookup of the nav hits
+        assertEquals(2, fragments.stats().getSize());
+        assertEquals(1, fragments.stats().getHits());
+    }
+
+    @Test
+    void testFragmentCacheFindsSharedSubtreesInWrappedPages() {
+        ConversionCache fragments = new ConversionCache(1 << 20);
+        HtmlToMarkdownConverter uncached = new HtmlToMarkdownConverter();
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .fragmentCache(fragments)
+                .build());
+        StringBuilder nav = new StringBuilder("<nav><ul>");
+        for (int i = 0; i < 30; i++) {
+            nav.append("<li><a href=\"/page/").append(i).append("\">Page ").append(i).append("</a></li>");
+        }
+        nav.append("</ul></nav>");
+        String footer = "<footer><p>Copyright <b>Example</b></p><p><a href=\"/terms\">Terms</a> | "
+                + "<a href=\"/privacy\">Privacy</a> | <a href=\"/contact\">Contact</a></p>"
+                + "<p>Follow us on <a href=\"/feed\">RSS</a></p></footer>";
+
+        for (int page = 0; page < 3; page++) {
+            String html = "<div id=\"wrap\"><header><h1>Page " + page + "</h1>" + nav + "</header>"
+                    + "<main><p>Article " + page + "</p></main>" + footer + "</div>";
+            assertEquals(uncached.convert(html), converter.convert(html));
+        }
+        // The wrapper and header differ on each page, the nav and footer
+        // inside them are found on the second and third
+        assertEquals(4, fragments.stats().getHits());
+    }
+
+    @Test
+    void testLargeFragmentsAreNotCached() {
+        ConversionCache fragments = new ConversionCache(1 << 20);
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .fragmentCache(fragments)
+                .maxFragmentNodes(100)
+                .build());
+        StringBuilder html = new StringBuilder("<div>");
+        for (int i = 0; i < 100; i++) {
+            html.append("<p>Paragraph ").append(i).append("</p>");
+        }
+        html.append("</div>");
+
+        converter.convert(html.toString());
+        assertEquals(0, fragments.stats().getSize());
+        assertEquals(0, fragments.stats().getMisses());
+        assertThrows(IllegalArgumentException.class, () -> ConverterConfig.builder().maxFragmentNodes(0));
+    }
+
+    @Test
+    void testFragmentsDifferingInWhitespaceDoNotShareResults() {
+        ConverterConfig.Builder builder = ConverterConfig.builder().minFragmentNodes(1);
+        HtmlToMarkdownConverter uncached = new HtmlToMarkdownConverter(builder.build());
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(builder
+                .fragmentCache(new ConversionCache(1 << 20))
+                .build());
+        String second = "x <section>``` </section><img src=\"i.png\" alt=\"q\">";
+
+        // Both sections pretty-print the same, but the space changes the output
+        converter.convert("<section>```</section>");
+        assertEquals("x ``` ![q](i.png)\n", uncached.convert(second));
+        assertEquals(uncached.convert(second), converter.convert(second));
+    }
+
+    @Test
+    void testFragmentsWithNonCacheableHandlersAreNotCached() {
+        ConversionCache fragments = new ConversionCache(1 << 20);
+        int[] calls = {0};
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .fragmentCache(fragments)
+                .minFragmentNodes(1)
+                .addCustomHandler("x-counter", (element, context) -> "#" + ++calls[0])
+                .build());
+
+        assertEquals("Count #1\n", converter.convert("<div><p>Count <x-counter></x-counter></p></div>"));
+        assertEquals("Count #2\n", converter.convert("<div><p>Count <x-counter></x-counter></p></div>"));
+        assertEquals(0, fragments.stats().getSize());
+    }
+}
@@ -0,0 +1,288 @@
+package com.github.htmltomd;
+
+import com.github.htmltomd.handler.ElementHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for resource limits.
+ */
+class ConversionLimitTest {
+
+    private static String nested(String tag, int depth) {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            html.append('<').append(tag).append('>');
+        }
+        html.append("deep");
+        for (int i = 0; i < depth; i++) {
+            html.append("</").append(tag).append('>');
+        }
+        return html.toString();
+    }
+
+    private static String paragraphs(int count) {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            html.append("<p>Paragraph <b>").append(i).append("</b></p>");
+        }
+        return html.toString();
+    }
+
+    private static HtmlToMarkdownConverter converter(ConverterConfig.Builder builder) {
+        return new HtmlToMarkdownConverter(builder.build());
+    }
+
+    @Test
+    void testNoLimitsByDefault() {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        assertTrue(converter.convert(paragraphs(1000)).contains("**999**"));
+    }
+
+    @Test
+    void testMaxInputLengthThrows() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder().maxInputLength(10));
+
+        ConversionLimitException e = assertThrows(ConversionLimitException.class,
+                () -> converter.convert("<p>This is too long</p>"));
+        assertEquals(ConversionLimitException.Limit.INPUT_LENGTH, e.getLimit());
+        assertEquals("Short\n", converter.convert("<p>Short"));
+    }
+
+    @Test
+    void testMaxInputLengthTruncates() throws IOException {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder()
+                .maxInputLength(14).limitPolicy(LimitPolicy.TRUNCATE));
+
+        assertEquals("Hello world\n", converter.convert("<p>Hello world and more</p>"));
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader("<p>Hello world and more</p>"), out);
+        assertEquals("Hello world\n", out.toString());
+    }
+
+    @Test
+    void testMaxInputLengthThrowsWhenStreaming() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder().maxInputLength(10));
+
+        ConversionLimitException e = assertThrows(ConversionLimitException.class,
+                () -> converter.convert(new StringReader("<p>This is too long</p>"), new StringWriter()));
+        assertEquals(ConversionLimitException.Limit.INPUT_LENGTH, e.getLimit());
+    }
+
+    @Test
+    void testMaxDepthThrows() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder().maxDepth(100));
+
+        ConversionLimitException e = assertThrows(ConversionLimitException.class,
+                () -> converter.convert(nested("div", 10000)));
+        assertEquals(ConversionLimitException.Limit.DEPTH, e.getLimit());
+        assertEquals("deep\n", converter.convert(nested("div", 50)));
+    }
+
+    @Test
+    void testMaxDepthFlattensDeepElements() throws IOException {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder()
+                .maxDepth(2).limitPolicy(LimitPolicy.TRUNCATE));
+
+        assertEquals("deep\n", converter.convert(nested("div", 10000)));
+        // The emphasis at depth 3 loses its formatting, not its text
+        assertEquals("> **Quote with emphasis**\n",
+                converter.convert("<blockquote><b>Quote <i>with emphasis</i></b></blockquote>"));
+
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader(nested("span", 10000)), out);
+        assertEquals("deep\n", out.toString());
+    }
+
+    @Test
+    void testMaxElementsThrows() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder().maxElements(100));
+
+        ConversionLimitException e = assertThrows(ConversionLimitException.class,
+                () -> converter.convert(paragraphs(100)));
+        assertEquals(ConversionLimitException.Limit.ELEMENTS, e.getLimit());
+        assertEquals(converter(ConverterConfig.builder()).convert(paragraphs(50)),
+                converter.convert(paragraphs(50)));
+    }
+
+    @Test
+    void testMaxElementsTruncates() throws IOException {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder()
+                .maxElements(4).limitPolicy(LimitPolicy.TRUNCATE));
+
+        assertEquals("Paragraph **0**\n\nParagraph **1**\n", converter.convert(paragraphs(1000)));
+
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader(paragraphs(1000)), out);
+        assertEquals("Paragraph **0**\n\nParagraph **1**\n", out.toString());
+    }
+
+    @Test
+    void testMaxElementsWithFragmentCache() {
+        ConversionCache fragments = new ConversionCache(1 << 20);
+        ConverterConfig.Builder builder = ConverterConfig.builder()
+                .maxElements(3).limitPolicy(LimitPolicy.TRUNCATE).minFragmentNodes(4);
+        HtmlToMarkdownConverter uncached = converter(builder);
+        HtmlToMarkdownConverter converter = converter(builder.fragmentCache(fragments));
+        StringBuilder div = new StringBuilder("<div>");
+        for (int i = 0; i < 10; i++) {
+            div.append("<p>para ").append(i).append("</p>");
+        }
+        div.append("</div>");
+
+        assertEquals(uncached.convert(div.toString()), converter.convert(div.toString()));
+        String page = "<p>a</p>" + div;
+        assertEquals("a\n\npara 0\n", uncached.convert(page));
+        assertEquals(uncached.convert(page), converter.convert(page));
+        assertEquals(0, fragments.stats().getSize());
+    }
+
+    @Test
+    void testMaxElementsInParallel() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder()
+                .maxElements(100).parallelChunkSize(8));
+
+        assertThrows(ConversionLimitException.class, () -> converter.convert(paragraphs(100)));
+    }
+
+    @Test
+    void testLimitsTruncateInParallelLikeSequentially() {
+        ConverterConfig.Builder builder = ConverterConfig.builder()
+                .maxElements(1000).limitPolicy(LimitPolicy.TRUNCATE);
+        String expected = converter(builder).convert(paragraphs(2000));
+        HtmlToMarkdownConverter parallel = converter(builder.parallelChunkSize(100));
+
+        assertTrue(expected.endsWith("Paragraph **499**\n"), expected);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected, parallel.convert(paragraphs(2000)));
+        }
+    }
+
+    @Test
+    void testMaxOutputLengthThrows() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder().maxOutputLength(100));
+
+        ConversionLimitException e = assertThrows(ConversionLimitException.class,
+                () -> converter.convert(paragraphs(100)));
+        assertEquals(ConversionLimitException.Limit.OUTPUT_LENGTH, e.getLimit());
+    }
+
+    @Test
+    void testMaxOutputLengthTruncates() throws IOException {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder()
+                .maxOutputLength(20).limitPolicy(LimitPolicy.TRUNCATE));
+
+        assertEquals("Paragraph **0**\n\nPar", converter.convert(paragraphs(1000)));
+
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader(paragraphs(1000)), out);
+        assertEquals("Paragraph **0**\n\nPar", out.toString());
+    }
+
+    @Test
+    void testMaxOutputLengthStopsRenderingEarly() throws IOException {
+        int[] rendered = {0};
+        ElementHandler counter = (element, context) -> {
+            rendered[0]++;
+            return element.text();
+        };
+        ConverterConfig.Builder builder = ConverterConfig.builder().addCustomHandler("x-item", counter);
+        HtmlToMarkdownConverter unlimited = converter(builder);
+        HtmlToMarkdownConverter converter = converter(builder.maxOutputLength(100).limitPolicy(LimitPolicy.TRUNCATE));
+        // A page wrapped in a single block, and a table whose spans expand
+        StringBuilder page = new StringBuilder("<div>");
+        StringBuilder table = new StringBuilder("<table>");
+        for (int i = 0; i < 10_000; i++) {
+            page.append("<p><x-item>Item ").append(i).append("</x-item></p>");
+            table.append("<tr><td colspan=\"1000\"><x-item>Cell ").append(i).append("</x-item></td></tr>");
+        }
+        page.append("</div>");
+        table.append("</table>");
+
+        for (String html : new String[] {page.toString(), table.toString()}) {
+            String expected = unlimited.convert(html).substring(0, 100);
+            rendered[0] = 0;
+            assertEquals(expected, converter.convert(html));
+            assertTrue(rendered[0] < 100, "rendered " + rendered[0]);
+            rendered[0] = 0;
+            StringWriter out = new StringWriter();
+            converter.convert(new StringReader(html), out);
+            assertEquals(expected, out.toString());
+            assertTrue(rendered[0] < 100, "rendered " + rendered[0] + " when streaming");
+        }
+    }
+
+    @Test
+    void testTimeoutThrows() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder().timeout(Duration.ofNanos(1)));
+
+        ConversionLimitException e = assertThrows(ConversionLimitException.class,
+                () -> converter.convert(paragraphs(1000)));
+        assertEquals(ConversionLimitException.Limit.TIME, e.getLimit());
+    }
+
+    @Test
+    void testTimeoutTruncatesAndIsNotCached() {
+        ConversionCache cache = new ConversionCache(1024 * 1024);
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder()
+                .timeout(Duration.ofNanos(1)).limitPolicy(LimitPolicy.TRUNCATE).cache(cache));
+
+        assertEquals("", converter.convert(paragraphs(1000)).trim());
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    void testInterruptCancelsConversion() {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder().timeout(Duration.ofMinutes(1)));
+
+        Thread.currentThread().interrupt();
+        try {
+            ConversionLimitException e = assertThrows(ConversionLimitException.class,
+                    () -> converter.convert(paragraphs(1000)));
+            assertEquals(ConversionLimitException.Limit.TIME, e.getLimit());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void testStreamingStopsReadingAtLimit() throws IOException {
+        HtmlToMarkdownConverter converter = converter(ConverterConfig.builder()
+                .maxElements(10).limitPolicy(LimitPolicy.TRUNCATE));
+        int[] read = new int[1];
+        Reader endless = new Reader() {
+            @Override
+            public int read(char[] cbuf, int off, int len) {
+                String chunk = "<p>More <b>text</b></p>";
+                int n = Math.min(len, chunk.length());
+                chunk.getChars(0, n, cbuf, off);
+                read[0] += n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        StringWriter out = new StringWriter();
+        converter.convert(endless, out);
+        assertTrue(out.toString().startsWith("More **text**"));
+        assertTrue(read[0] < 1024 * 1024);
+    }
+
+    @Test
+    void testInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> ConverterConfig.builder().maxDepth(-1));
+        assertThrows(IllegalArgumentException.class, () -> ConverterConfig.builder().timeout(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> ConverterConfig.builder().limitPolicy(null));
+    }
+}
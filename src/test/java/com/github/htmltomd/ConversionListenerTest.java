@@ -0,0 +1,93 @@
+package com.github.htmltomd;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for conversion metrics.
+ */
+class ConversionListenerTest {
+
+    private static final String HTML = "<h1>Title</h1><p>Some <b>bold</b> and <b>more</b> text</p>"
+            + "<ul><li>One</li><li>Two</li></ul>";
+
+    @Test
+    void testMetricsOfConversion() {
+        List<ConversionMetrics> reported = new CopyOnWriteArrayList<>();
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().listener(reported::add).build());
+
+        String markdown = converter.convert(HTML);
+
+        assertEquals(1, reported.size());
+        ConversionMetrics metrics = reported.get(0);
+        assertFalse(metrics.isStreaming());
+        assertEquals(HTML.length(), metrics.getInputLength());
+        assertEquals(markdown.length(), metrics.getOutputLength());
+        assertTrue(metrics.getTotalNanos() > 0);
+        assertTrue(metrics.getPhaseNanos(ConversionMetrics.Phase.PARSE) > 0);
+        assertTrue(metrics.getPhaseNanos(ConversionMetrics.Phase.RENDER) > 0);
+
+        assertEquals(2, metrics.getTags().get("b").getCount());
+        assertEquals(2, metrics.getTags().get("li").getCount());
+        assertEquals(1, metrics.getTags().get("ul").getCount());
+        ConversionMetrics.TagStats paragraph = metrics.getTags().get("p");
+        assertEquals(1, paragraph.getCount());
+        assertTrue(paragraph.getSelfNanos() >= 0);
+    }
+
+    @Test
+    void testMetricsOfStreamingConversion() throws IOException {
+        List<ConversionMetrics> reported = new CopyOnWriteArrayList<>();
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().listener(reported::add).build());
+
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader(HTML), out);
+
+        assertEquals(1, reported.size());
+        ConversionMetrics metrics = reported.get(0);
+        assertTrue(metrics.isStreaming());
+        assertEquals(HTML.length(), metrics.getInputLength());
+        assertEquals(out.toString().length(), metrics.getOutputLength());
+        assertEquals(2, metrics.getTags().get("b").getCount());
+        assertEquals(2, metrics.getTags().get("li").getCount());
+    }
+
+    @Test
+    void testMetricsOfParallelConversion() {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            html.append("<p>Paragraph <em>").append(i).append("</em></p>");
+        }
+        List<ConversionMetrics> reported = new CopyOnWriteArrayList<>();
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().parallelChunkSize(16).listener(reported::add).build());
+
+        converter.convert(html.toString());
+
+        assertEquals(1, reported.size());
+        assertEquals(200, reported.get(0).getTags().get("p").getCount());
+        assertEquals(200, reported.get(0).getTags().get("em").getCount());
+    }
+
+    @Test
+    void testObserverIsNotKeptAcrossConversions() {
+        List<ConversionMetrics> reported = new CopyOnWriteArrayList<>();
+        HtmlToMarkdownConverter observed = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().listener(reported::add).build());
+        HtmlToMarkdownConverter plain = new HtmlToMarkdownConverter();
+
+        observed.convert(HTML);
+        assertEquals(observed.convert(HTML), plain.convert(HTML));
+        assertEquals(2, reported.size());
+        assertEquals(2, reported.get(1).getTags().get("b").getCount());
+    }
+}
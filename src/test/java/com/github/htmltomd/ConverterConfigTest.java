@@ -58,4 +58,21 @@ class ConverterConfigTest {
         assertNotNull(config.getCustomHandler("CUSTOM")); // case insensitive
         assertSame(customHandler, config.getCustomHandler("custom"));
     }
+
+    @Test
+    void testConfigIsImmutable() {
+        ConverterConfig.Builder builder = ConverterConfig.builder()
+                .addCustomHandler("custom", (element, context) -> "CUSTOM")
+                .addPostProcessor(next -> next);
+        ConverterConfig config = builder.build();
+
+        // Later changes to the builder don't leak into a built config
+        builder.addCustomHandler("other", (element, context) -> "OTHER").removeTag("nav");
+        assertNull(config.getCustomHandler("other"));
+        assertFalse(config.shouldRemoveTag("nav"));
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> config.getCustomHandlers().put("div", (element, context) -> ""));
+        assertThrows(UnsupportedOperationException.class, () -> config.getPostProcessors().clear());
+    }
 }
@@ -0,0 +1,121 @@
+package com.github.htmltomd;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests for FastPathParser against Jsoup's HTML parser.
+ */
+class FastPathParserTest {
+
+    private static final ConverterConfig CONFIG = ConverterConfig.defaultConfig();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<p>Hi <b>x</b></p>",
+            "Plain text only",
+            "  <p>Leading whitespace</p>  ",
+            "  leading text",
+            "<h2 id=\"intro\" class='big'>Title</h2><p>Body &amp; more &lt;tags&gt;</p>",
+            "<p>A <a href=\"https://example.com/?a=1&amp;b=2\" title=\"Example\">link</a> and "
+                    + "<img src=/img.png alt=\"Alt text\"></p>",
+            "<p>Line<br>break<br/>and <em><strong>nested</strong></em></p>\n<hr>\n<p>After</p>",
+            "<P CLASS=\"x\">Upper <B>case</B></P>",
+            "<span style=\"font-weight: bold\">styled</span> text",
+            "<p>Code: <code>a &lt; b</code>, <del>old</del> <s>gone</s> <i>it</i></p>",
+            "<p>&nbsp;&copy; 2024 &#x27;quoted&#39;</p>",
+            "<p><a href=x/>unquoted</a></p>"
+    })
+    void testMatchesJsoup(String html) {
+        Element fast = FastPathParser.parseBody(html, CONFIG);
+        assertNotNull(fast, "expected fast path for " + html);
+        assertSameTree(Jsoup.parse(html).body(), fast, html);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<p>Unclosed",
+            "<p>One<p>Two",
+            "<b><p>Block in inline</p></b>",
+            "<b>Misnested <i>tags</b></i>",
+            "<p>Stray</p></p>",
+            "<a href=a><a href=b>nested links</a></a>",
+            "<div>Unsupported tag</div>",
+            "<!-- comment --><p>x</p>",
+            "<p>a < b</p>",
+            "<p>Line\r\nbreak</p>",
+            "<p class=a class=b>duplicate attribute</p>",
+            "<b/>self-closing",
+            "  &amp; leading entity"
+    })
+    void testFallsBackToJsoup(String html) {
+        assertNull(FastPathParser.parseBody(html, CONFIG), html);
+    }
+
+    @Test
+    void testFallsBackForConfiguredTags() {
+        String html = "<p>Text <b>bold</b></p>";
+        assertNull(FastPathParser.parseBody(html, ConverterConfig.builder()
+                .addCustomHandler("b", (element, context) -> "B")
+                .build()));
+        assertNull(FastPathParser.parseBody(html, ConverterConfig.builder().preserveTag("b").build()));
+        assertNull(FastPathParser.parseBody(html, ConverterConfig.builder().removeTag("b").build()));
+    }
+
+    @Test
+    void testRandomFragmentsMatchJsoup() {
+        String[] tokens = {
+                "<p>", "</p>", "<h3>", "</h3>", "<b>", "</b>", "<em>", "</em>", "<code>", "</code>",
+                "<a href=\"/x?a=1&amp;b=2\">", "</a>", "<span class=s>", "</span>", "<br>", "<hr>",
+                "<img src=i.png alt='x'>", "text", "more words", " ", "  ", "\n", "\t", "&amp;", "&lt;",
+                "&nbsp;", "&copy", "<", ">", "<div>", "</div>"
+        };
+        Random random = new Random(42);
+        HtmlToMarkdownConverter fastConverter = new HtmlToMarkdownConverter();
+        HtmlToMarkdownConverter jsoupConverter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .fastPathParsing(false)
+                .build());
+        int parsed = 0;
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder html = new StringBuilder();
+            int count = 1 + random.nextInt(12);
+            for (int t = 0; t < count; t++) {
+                html.append(tokens[random.nextInt(tokens.length)]);
+            }
+            String input = html.toString();
+            Element fast = FastPathParser.parseBody(input, CONFIG);
+            if (fast != null) {
+                parsed++;
+                assertSameTree(Jsoup.parse(input).body(), fast, input);
+            }
+            assertEquals(jsoupConverter.convert(input), fastConverter.convert(input), input);
+        }
+        assertTrue(parsed > 1_000, "fast path taken " + parsed + " times");
+    }
+
+    private static void assertSameTree(Element expected, Element actual, String html) {
+        assertEquals(expected.normalName(), actual.normalName(), html);
+        assertEquals(expected.attributes().html(), actual.attributes().html(), html);
+        assertEquals(expected.childNodeSize(), actual.childNodeSize(), () -> "children of "
+                + expected.normalName() + " in " + html + ": " + expected.childNodes() + " vs " + actual.childNodes());
+        for (int i = 0; i < expected.childNodeSize(); i++) {
+            Node e = expected.childNode(i);
+            Node a = actual.childNode(i);
+            assertEquals(e.getClass(), a.getClass(), html);
+            if (e instanceof TextNode text) {
+                assertEquals(text.getWholeText(), ((TextNode) a).getWholeText(), html);
+            } else {
+                assertSameTree((Element) e, (Element) a, html);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.htmltomd;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for protecting fenced code blocks from HTML conversion.
+ */
+class FencedCodeBlockTest {
+
+    private final HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+
+    private void assertConverts(String expected, String input) throws IOException {
+        assertEquals(expected, converter.convert(input));
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader(input), out);
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    void testCodeBlockIsKeptVerbatim() throws IOException {
+        assertConverts("Intro **bold**\n\n```html\n<b>not bold</b>\n```\n",
+                "<p>Intro <b>bold</b></p>\n```html\n<b>not bold</b>\n```");
+    }
+
+    @Test
+    void testPlaceholderLikeTextIsNotReplaced() throws IOException {
+        assertConverts("Literal ___CODE_BLOCK_0___ text\n\n```\ncode\n```\n",
+                "<p>Literal ___CODE_BLOCK_0___ text</p>\n```\ncode\n```");
+    }
+
+    @Test
+    void testSentinelCharactersInInputAreKept() throws IOException {
+        assertConverts("Private \uE0000\uE001 use \uE000\n\n```\ncode\n```\n",
+                "<p>Private \uE0000\uE001 use \uE000</p>\n```\ncode\n```");
+        assertConverts("Only \uE0001\uE001\n", "<p>Only \uE0001\uE001</p>");
+    }
+
+    @Test
+    void testUnterminatedFenceIsLeftAlone() throws IOException {
+        assertConverts("```\ncode\n```\n**open**\n```\n", "```\ncode\n```\n<b>open</b>\n```");
+    }
+
+    @Test
+    void testManyCodeBlocks() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 3_000; i++) {
+            input.append("<p>Step ").append(i).append("</p>\n```\nrun ").append(i).append("\n```\n");
+            expected.append("Step ").append(i).append("\n\n```\nrun ").append(i).append("\n```\n");
+        }
+        assertConverts(expected.toString(), input.toString());
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.htmltomd;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Flight Recorder events.
+ */
+class FlightRecorderEventTest {
+
+    private static final String HTML = "<h1>Title</h1><p>Some <b>bold</b> text</p>";
+
+    @Test
+    void testEventsAreRecorded() throws IOException {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        List<RecordedEvent> events;
+        String markdown;
+        StringWriter streamed = new StringWriter();
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.htmltomd.Conversion").withThreshold(Duration.ZERO);
+            recording.enable("com.github.htmltomd.Handler").withThreshold(Duration.ZERO);
+            recording.start();
+            markdown = converter.convert(HTML);
+            converter.convert(new StringReader(HTML), streamed);
+            recording.stop();
+            events = read(recording);
+        }
+
+        List<RecordedEvent> conversions = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.github.htmltomd.Conversion"))
+                .collect(Collectors.toList());
+        assertEquals(2, conversions.size());
+        assertFalse(conversions.get(0).getBoolean("streaming"));
+        assertEquals(HTML.length(), conversions.get(0).getLong("inputLength"));
+        assertEquals(markdown.length(), conversions.get(0).getLong("outputLength"));
+        assertTrue(conversions.get(1).getBoolean("streaming"));
+        assertEquals(streamed.toString().length(), conversions.get(1).getLong("outputLength"));
+
+        List<RecordedEvent> bold = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.github.htmltomd.Handler"))
+                .filter(e -> "b".equals(e.getString("tag")))
+                .collect(Collectors.toList());
+        assertEquals(2, bold.size());
+        // p > b
+        assertEquals(1, bold.get(0).getInt("depth"));
+        assertEquals("**bold**".length(), bold.get(0).getLong("outputLength"));
+    }
+
+    @Test
+    void testFastConversionsAreBelowThreshold() throws IOException {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.htmltomd.Conversion").withThreshold(Duration.ofSeconds(10));
+            recording.enable("com.github.htmltomd.Handler").withThreshold(Duration.ofSeconds(10));
+            recording.start();
+            converter.convert(HTML);
+            recording.stop();
+            events = read(recording);
+        }
+
+        assertTrue(events.stream().noneMatch(e -> e.getEventType().getName().startsWith("com.github.htmltomd.")));
+    }
+
+    private static List<RecordedEvent> read(Recording recording) throws IOException {
+        Path file = Files.createTempFile("conversion", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.htmltomd;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regression tests comparing converter output against recorded Markdown for a
+ * corpus of realistic documents (src/test/resources/golden).
+ */
+class GoldenOutputTest {
+
+    private final HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "blog-post", "nested-lists", "blockquotes", "tables", "code-heavy", "fenced-markdown",
+            "headings", "spans", "wechat", "scripts", "whitespace", "links-images"
+    })
+    void testGoldenOutput(String name) throws IOException {
+        String html = read(name + ".html");
+        String expected = read(name + ".md");
+        assertEquals(expected, converter.convert(html));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "blog-post", "nested-lists", "blockquotes", "tables", "code-heavy", "fenced-markdown",
+            "headings", "spans", "wechat", "scripts", "whitespace", "links-images"
+    })
+    void testGoldenOutputInParallel(String name) throws IOException {
+        String html = read(name + ".html");
+        String expected = read(name + ".md");
+        for (int chunkSize = 1; chunkSize <= 3; chunkSize++) {
+            HtmlToMarkdownConverter parallel = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                    .parallelChunkSize(chunkSize)
+                    .build());
+            assertEquals(expected, parallel.convert(html), "chunk size " + chunkSize);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "blog-post", "nested-lists", "blockquotes", "tables", "code-heavy", "fenced-markdown",
+            "headings", "spans", "wechat", "scripts", "whitespace", "links-images"
+    })
+    void testGoldenOutputWithFragmentCache(String name) throws IOException {
+        String html = read(name + ".html");
+        String expected = read(name + ".md");
+        HtmlToMarkdownConverter cached = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .fragmentCache(new ConversionCache(1 << 20))
+                .minFragmentNodes(1)
+                .build());
+        // Second run is served from the fragment cache
+        assertEquals(expected, cached.convert(html));
+        assertEquals(expected, cached.convert(html));
+    }
+
+    static String read(String resource) throws IOException {
+        try (InputStream in = GoldenOutputTest.class.getResourceAsStream("/golden/" + resource)) {
+            assertNotNull(in, "Missing test resource " + resource);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
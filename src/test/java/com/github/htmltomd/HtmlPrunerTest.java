@@ -0,0 +1,106 @@
+package com.github.htmltomd;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests for HtmlPruner against removing the elements after
+ * parsing.
+ */
+class HtmlPrunerTest {
+
+    private static final Set<String> TAGS = HtmlPruner.prunableTags(ConverterConfig.DEFAULT_REMOVE_TAGS);
+
+    @Test
+    void testPrunableTags() {
+        assertEquals(Set.of("script", "style", "svg", "iframe"), TAGS);
+    }
+
+    @Test
+    void testPrunes() {
+        assertEquals("<p>a</p><script></script><p>b</p>",
+                HtmlPruner.prune("<p>a</p><script>if (a < b) { x = '</p>'; }</script><p>b</p>", TAGS));
+        assertEquals("<style></style>x", HtmlPruner.prune("<STYLE type=text/css>p > b { color: red }</style >x", TAGS));
+        assertEquals("<p>a <svg/> b</p>", HtmlPruner.prune(
+                "<p>a <svg viewBox='0 0 1 1'><title>icon</title><path d=\"M0 0\"/></svg> b</p>", TAGS));
+        assertEquals("<svg/><script></script>",
+                HtmlPruner.prune("<svg><g><svg><g/></svg></g></svg><script></script>", TAGS));
+        // Not a tag in attribute values, comments and other raw text
+        String html = "<p title='<script>x</script>'>a</p><!-- <script>x</script> --><textarea><style></textarea>";
+        assertSame(html, HtmlPruner.prune(html, TAGS));
+    }
+
+    @Test
+    void testSelfClosingRawTextIsEmpty() {
+        String html = "<p>Intro<script src=\"a.js\"/></p><h2>Section</h2><p>Body text</p><script>track()</script>";
+        assertEquals("<p>Intro<script src=\"a.js\"/></p><h2>Section</h2><p>Body text</p><script></script>",
+                HtmlPruner.prune(html, TAGS));
+        assertEquals("Intro\n\n## Section\n\nBody text\n", new HtmlToMarkdownConverter().convert(html));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<p>Unterminated <script>x",
+            "<script><!--<script>x</script>--></script><p>y</p>",
+            "<svg><g><p>breakout</p></g></svg>",
+            "<svg><g></svg>",
+            "<head><noscript><script>x</script></noscript>",
+            "<p>x<svg><title>text</title></svg><frameset>",
+            "<p class='unterminated><script>x</script>",
+            "<div>no removed tags</div>"
+    })
+    void testLeavesUncertainInput(String html) {
+        assertSame(html, HtmlPruner.prune(html, TAGS));
+    }
+
+    @Test
+    void testRandomFragmentsMatchRemovingAfterParsing() {
+        String[] tokens = {
+                "<p>", "</p>", "<div>", "</div>", "<b>", "</b>", "<span>", "</span>", "text", " ", "\n",
+                "<script>", "</script>", "<SCRIPT type=\"x\">", "</script >", "<style>", "</style>",
+                "<svg>", "</svg>", "<svg/>", "<g>", "</g>", "<g/>", "<path d=\"a>b\"/>", "<path d=x/>",
+                "<title>", "</title>", "<textarea>", "</textarea>", "<foreignObject>", "</foreignObject>",
+                "<!--", "-->", "<!-- c -->", "<![CDATA[", "]]>", "<a href='<script>'>", "</a>", "<", "<!x>",
+                "<?p?>", "<table>", "<tr>", "<td>", "</table>", "<math>", "</math>", "<mi>", "<iframe>",
+                "</iframe>", "<br>", "</br>", "<img src=a>", "<font color=r>", "<li>", "<pre>", "<head>",
+                "</head>", "<meta>", "<noscript>", "</noscript>", "<xmp>", "</xmp>", "<body>", "&amp;",
+                "<script src=a/>", "<style/>", "<iframe src='x'/>", "<textarea/>"
+        };
+        Random random = new Random(42);
+        int pruned = 0;
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder html = new StringBuilder();
+            int count = 1 + random.nextInt(14);
+            for (int t = 0; t < count; t++) {
+                html.append(tokens[random.nextInt(tokens.length)]);
+            }
+            String input = html.toString();
+            String output = HtmlPruner.prune(input, TAGS);
+            if (!output.equals(input)) {
+                pruned++;
+            }
+            assertEquals(parseWithout(input), parseWithout(output), input);
+        }
+        assertTrue(pruned > 100, "pruned " + pruned + " times");
+    }
+
+    private static String parseWithout(String html) {
+        Document document = Jsoup.parse(html);
+        for (Element element : new ArrayList<>(document.getAllElements())) {
+            if (TAGS.contains(element.normalName()) && element.parent() != null) {
+                element.remove();
+            }
+        }
+        return document.html();
+    }
+}
@@ -143,6 +143,90 @@ class HtmlToMarkdownConverterTest {
         assertTrue(result.contains("| Cell 1 | Cell 2 |"));
     }
 
+    @Test
+    void testTableSpans() {
+        String html = "<table><tr><th>A</th><th>B</th><th>C</th></tr>"
+                + "<tr><td colspan=\"2\">wide</td><td rowspan=\"2\">tall</td></tr>"
+                + "<tr><td>x</td><td>y</td></tr></table>";
+
+        assertEquals("| A | B | C |\n|-------|-------|-------|\n| wide |  | tall |\n| x | y |  |\n",
+                converter.convert(html));
+    }
+
+    @Test
+    void testTableSectionsAndNestedTables() {
+        String html = "<table><tfoot><tr><td>Total</td><td>3</td></tr></tfoot>"
+                + "<tbody><tr><td>a</td><td>1</td></tr></tbody>"
+                + "<thead><tr><th>Item</th><th>Qty</th></tr></thead></table>";
+        assertEquals("| Item | Qty |\n|-------|-------|\n| a | 1 |\n| Total | 3 |\n", converter.convert(html));
+
+        // Rows of the inner table stay in the outer cell
+        String nested = "<table><tr><th>Outer</th></tr><tr><td><table><tr><td>inner</td></tr></table></td></tr></table>";
+        assertEquals("| Outer |\n|-------|\n| | inner |  |-------| |\n", converter.convert(nested));
+    }
+
+    @Test
+    void testTableStartsNewBlock() {
+        // Without a doctype the parser leaves the table in the paragraph
+        assertEquals("bar qux\n\n| a | b |\n|-------|-------|\n",
+                converter.convert("<p>bar qux <table><tr><td>a</td><td>b</td></tr></table></p>"));
+        assertEquals("x y\n", converter.convert("<p>x <table></table>y</p>"));
+    }
+
+    @Test
+    void testStreamingTable() {
+        StringBuilder html = new StringBuilder("<table><thead><tr><th>N</th><th>Odd</th></tr></thead><tbody>");
+        for (int i = 0; i < 500; i++) {
+            html.append("<tr><td>").append(i).append("</td><td>").append(i % 2 == 1 ? "yes" : "").append("</td></tr>");
+            html.append("<tr><td></td></tr>");
+        }
+        html.append("</tbody></table>");
+        HtmlToMarkdownConverter streaming = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().streamingTables(8).build());
+
+        assertEquals(converter.convert(html.toString()), streaming.convert(html.toString()));
+
+        // Streaming only starts at the first row with text
+        String empty = "<tr><td></td><td></td></tr>".repeat(20_000);
+        assertEquals("| a | b |\n|-------|-------|\n| c | d |\n",
+                streaming.convert("<table>" + empty + "<tr><td>a</td><td>b</td></tr>" + empty
+                        + "<tr><td>c</td><td>d</td></tr></table>"));
+    }
+
+    @Test
+    void testStreamingTableOverflow() {
+        String html = "<table><tr><th>A</th><th>B</th></tr><tr><td>1</td><td>2</td></tr>"
+                + "<tr><td>3</td><td>4</td><td>5</td><td>6</td></tr></table>";
+        String head = "| A | B |\n|-------|-------|\n| 1 | 2 |\n";
+
+        assertEquals(head + "| 3 | 4 | 5 | 6 |\n", convertStreaming(html, TableOverflow.KEEP));
+        assertEquals(head + "| 3 | 4 5 6 |\n", convertStreaming(html, TableOverflow.MERGE));
+        assertEquals(head + "| 3 | 4 |\n", convertStreaming(html, TableOverflow.DROP));
+        // Extra cells are merged by default, as renderers hide them
+        assertEquals(head + "| 3 | 4 5 6 |\n",
+                new HtmlToMarkdownConverter(ConverterConfig.builder().streamingTables(2).build()).convert(html));
+        assertThrows(IllegalArgumentException.class, () -> ConverterConfig.builder().streamingTables(-1));
+    }
+
+    private static String convertStreaming(String html, TableOverflow overflow) {
+        return new HtmlToMarkdownConverter(ConverterConfig.builder().streamingTables(2).tableOverflow(overflow).build())
+                .convert(html);
+    }
+
+    @Test
+    void testAlignedTable() {
+        HtmlToMarkdownConverter aligned = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().alignTables(true).build());
+        String html = "<table><tr><th>Name</th><th align=\"center\">Qty</th><th style=\"text-align: right\">Price</th></tr>"
+                + "<tr><td>Apple</td><td>3</td><td>1.20</td></tr>"
+                + "<tr><td>\u82f9\u679c</td><td>10</td><td>0.5</td></tr></table>";
+
+        assertEquals("| Name  | Qty | Price |\n"
+                + "| ----- | :-: | ----: |\n"
+                + "| Apple |  3  |  1.20 |\n"
+                + "| \u82f9\u679c  | 10  |   0.5 |\n", aligned.convert(html));
+    }
+
     @Test
     void testHorizontalRule() {
         String html = "<p>Before</p><hr><p>After</p>";
@@ -193,6 +277,49 @@ class HtmlToMarkdownConverterTest {
         assertFalse(result.contains("alert"));
     }
 
+    @Test
+    void testDefaultRemoveTags() {
+        String html = "<p>Text <svg><title>icon</title><path d=\"M0 0\"/></svg>"
+                + "<noscript>Enable JS</noscript><iframe>Fallback</iframe></p><template><p>Later</p></template>";
+        assertEquals("Text", converter.convert(html).trim());
+
+        // Preserve rules and custom handlers win over the defaults
+        HtmlToMarkdownConverter custom = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .preserveTag("svg")
+                .addCustomHandler("noscript", (element, context) -> "(" + element.text() + ")")
+                .build());
+        String result = custom.convert(html);
+        assertTrue(result.contains("<svg>"), result);
+        assertTrue(result.contains("icon"), result);
+        assertTrue(result.contains("(Enable JS)"), result);
+        assertFalse(result.contains("Fallback"), result);
+
+        HtmlToMarkdownConverter all = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .removeDefaultTags(false)
+                .build());
+        assertEquals("Text iconEnable JSFallback\n\nLater", all.convert(html).trim());
+    }
+
+    @Test
+    void testExtractMainContent() {
+        String paragraph = "Extraction keeps the text of the article, with its commas, and drops the rest.";
+        String html = "<nav><a href=\"/\">Home</a> <a href=\"/blog\">Blog</a></nav>"
+                + "<article><h1>Title</h1><p>" + paragraph + "</p><p>Second <b>paragraph</b>, "
+                + paragraph + "</p><div class=\"share\">Share</div></article>"
+                + "<div id=\"comments\"><p>First comment, " + paragraph + "</p></div>"
+                + "<footer>Copyright</footer>";
+        assertTrue(converter.convert(html).contains("Copyright"));
+
+        HtmlToMarkdownConverter extracting = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .extractMainContent(true)
+                .build());
+        assertEquals("# Title\n\n" + paragraph + "\n\nSecond **paragraph**, " + paragraph + "\n",
+                extracting.convert(html));
+        // Short pages are converted whole
+        String page = "<nav><a href=\"/\">Home</a></nav><p>Short</p>";
+        assertEquals(converter.convert(page), extracting.convert(page));
+    }
+
     @Test
     void testLineBreak() {
         String html = "<p>Line 1<br>Line 2</p>";
@@ -200,4 +327,12 @@ class HtmlToMarkdownConverterTest {
         assertTrue(result.contains("Line 1"));
         assertTrue(result.contains("Line 2"));
     }
+
+    @Test
+    void testTextWhitespaceNormalization() {
+        assertEquals("Leading and inner space\n",
+                converter.convert("<p>\u00A0\u3000 Leading \t and\u00A0\u00A0inner\n\nspace</p>"));
+        assertEquals("zero width\n", converter.convert("<p>zero\u200B \u200Bwidth</p>"));
+        assertEquals("**bold** text\n", converter.convert("<p><b>bold</b>\u3000\u3000text</p>"));
+    }
 }
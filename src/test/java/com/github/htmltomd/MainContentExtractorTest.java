@@ -0,0 +1,90 @@
+package com.github.htmltomd;
+
+import com.github.htmltomd.handler.DispatchTable;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for MainContentExtractor.
+ */
+class MainContentExtractorTest {
+
+    private static final String PARAGRAPH = "<p>The quick brown fox, which was very quick, jumped over the lazy dog,"
+            + " and then it ran into the woods, where nobody ever saw it again.</p>";
+
+    private static Element extract(String html, ConverterConfig config) {
+        Element body = Jsoup.parse(html).body();
+        return MainContentExtractor.extract(body, config, DispatchTable.compile(config, Map.of()));
+    }
+
+    private static Element extract(String html) {
+        return extract(html, ConverterConfig.defaultConfig());
+    }
+
+    @Test
+    void testFindsArticle() {
+        String html = "<header><a href=/>Home</a> <a href=/about>About</a></header>"
+                + "<div class=layout>"
+                + "<nav>" + PARAGRAPH + PARAGRAPH + "</nav>"
+                + "<div id=main>" + PARAGRAPH + PARAGRAPH + PARAGRAPH + "</div>"
+                + "<div class=sidebar>" + PARAGRAPH + PARAGRAPH + PARAGRAPH + PARAGRAPH + "</div>"
+                + "</div>"
+                + "<footer>" + PARAGRAPH + "</footer>";
+        assertEquals("main", extract(html).id());
+    }
+
+    @Test
+    void testLinksCountAgainstContent() {
+        String links = "<li><a href=/a>A link with a long title, many words, and commas, too</a></li>";
+        String html = "<div id=links><ul>" + links.repeat(8) + "</ul>"
+                + "<p><a href=/b>A paragraph that is one long link, with commas, and more commas</a></p>"
+                + "<p><a href=/c>A paragraph that is one long link, with commas, and more commas</a></p></div>"
+                + "<div id=text>" + PARAGRAPH + PARAGRAPH + "</div>";
+        assertEquals("text", extract(html).id());
+    }
+
+    @Test
+    void testRemovesClutterInsideContent() {
+        String html = "<article>" + PARAGRAPH + "<div class=share-buttons>Share this</div>" + PARAGRAPH
+                + "<section id=comments>" + PARAGRAPH.repeat(5) + "</section></article>";
+        Element content = extract(html);
+        assertEquals("article", content.normalName());
+        assertEquals(2, content.childrenSize());
+        assertFalse(content.text().contains("Share"));
+    }
+
+    @Test
+    void testSkipsHiddenElements() {
+        String html = "<div id=visible>" + PARAGRAPH + "</div>"
+                + "<div id=hidden style='display: none'>" + PARAGRAPH.repeat(3) + "</div>";
+        assertEquals("hidden", extract(html).id());
+        assertEquals("visible", extract(html, ConverterConfig.builder().skipHiddenElements(true).build()).id());
+    }
+
+    @Test
+    void testSkipsRemovedElements() {
+        String html = "<div id=visible>" + PARAGRAPH + "</div>"
+                + "<ul><li id=removed>" + PARAGRAPH.repeat(3) + "</li></ul>";
+        assertEquals("removed", extract(html).id());
+        assertEquals("visible", extract(html, ConverterConfig.builder().removeTag("ul").build()).id());
+    }
+
+    @Test
+    void testShortPagesAreKept() {
+        Element body = Jsoup.parse("<nav><a href=/>Home</a></nav><p>Short</p>").body();
+        ConverterConfig config = ConverterConfig.defaultConfig();
+        assertSame(body, MainContentExtractor.extract(body, config, DispatchTable.compile(config, Map.of())));
+        assertEquals(2, body.childrenSize());
+    }
+
+    @Test
+    void testDeeplyNested() {
+        String html = "<div>".repeat(2_000) + PARAGRAPH + "</div>".repeat(2_000);
+        assertEquals("div", extract(html).normalName());
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.htmltomd;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the post-processing stages.
+ */
+class PostProcessorTest {
+
+    private static String cleanup(String... chunks) {
+        StringBuilder out = new StringBuilder();
+        MarkdownSink sink = PostProcessor.cleanup().open(MarkdownSink.to(out));
+        for (String chunk : chunks) {
+            sink.write(chunk);
+        }
+        sink.finish();
+        return out.toString();
+    }
+
+    @Test
+    void testCleanup() {
+        assertEquals("\n", cleanup(""));
+        assertEquals("a\n\nb\n", cleanup("\n\n  a  \n\n\n\n   b   \n\n"));
+        assertEquals("```\n  code  \n\n\n```\n", cleanup("```\n  code  \n\n\n```"));
+    }
+
+    @Test
+    void testCleanupAcrossChunks() {
+        assertEquals(cleanup("# A\n\n# B\n\ntext\n"), cleanup("#", " A\n", "\n# ", "B\n\nte", "xt\n"));
+    }
+
+    @Test
+    void testMergeHeadingRuns() {
+        assertEquals("# A B C\n", cleanup("# A\n# B\n\n# C"));
+        assertEquals("## A\n# B C\n", cleanup("## A\n# B\n# C"));
+        assertEquals("# A\n\ntext\n\n# B\n", cleanup("# A\n\ntext\n\n# B"));
+
+        StringBuilder run = new StringBuilder();
+        StringBuilder expected = new StringBuilder("##");
+        for (int i = 0; i < 20_000; i++) {
+            run.append("## H").append(i).append("\n\n");
+            expected.append(" H").append(i);
+        }
+        assertEquals(expected + "\n", cleanup(run.toString()));
+    }
+
+    @Test
+    void testHeadingsInCodeBlocksAreNotMerged() {
+        assertEquals("```python\n# one\n# two\n```\n", cleanup("```python\n# one\n# two\n```"));
+    }
+
+    @Test
+    void testCustomPostProcessor() throws IOException {
+        PostProcessor upperCase = next -> new MarkdownSink() {
+            @Override
+            public void write(CharSequence text, int start, int end) {
+                next.write(text.subSequence(start, end).toString().toUpperCase());
+            }
+
+            @Override
+            public void finish() {
+                next.finish();
+            }
+        };
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .addPostProcessor(upperCase)
+                .build());
+
+        assertEquals("# TITLE\n\nTEXT\n", converter.convert("<h1>Title</h1><p>Text</p>"));
+
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader("<h1>Title</h1><p>Text</p>"), out);
+        assertEquals("# TITLE\n\nTEXT\n", out.toString());
+    }
+}
@@ -21,4 +21,28 @@ class SpanStyleTest {
         String result = converter.convert(html);
         assertEquals("*This should be italic*", result.trim());
     }
+
+    @Test
+    void testSpanWithImportantStyle() {
+        String html = "<span style=\"FONT-WEIGHT: Bold !important; text-decoration-line: line-through\">text</span>";
+        assertEquals("~~**text**~~", converter.convert(html).trim());
+    }
+
+    @Test
+    void testHiddenElementsKeptByDefault() {
+        String html = "<p>shown <span style=\"display:none\">hidden</span></p>";
+        assertEquals("shown hidden", converter.convert(html).trim());
+    }
+
+    @Test
+    void testSkipHiddenElements() {
+        HtmlToMarkdownConverter skipping = new HtmlToMarkdownConverter(ConverterConfig.builder()
+                .skipHiddenElements(true)
+                .preserveTag("kbd")
+                .build());
+        String html = "<p>shown<span style=\"display: none\"> hidden <b>bold</b></span> text</p>"
+                + "<div style=\"DISPLAY:NONE\"><p>hidden block</p></div>"
+                + "<p><kbd style=\"display:none\">key</kbd></p>";
+        assertEquals("shown text\n\n<kbd style=\"display:none\">key</kbd>", skipping.convert(html).trim());
+    }
 }
@@ -0,0 +1,144 @@
+package com.github.htmltomd;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming convert(Reader, Writer) API.
+ */
+class StreamingConverterTest {
+
+    private final HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+
+    private String convertStreaming(String html) throws IOException {
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader(html), out);
+        return out.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "blog-post", "nested-lists", "blockquotes", "tables", "code-heavy", "fenced-markdown",
+            "headings", "spans", "wechat", "scripts", "whitespace", "links-images"
+    })
+    void testMatchesStringConversion(String name) throws IOException {
+        String html = GoldenOutputTest.read(name + ".html");
+        assertEquals(converter.convert(html), convertStreaming(html));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<b><span><div>x</b> lost text</div>",
+            "<em><span><p>Para</em> more words</p>",
+            "<strong><span><h2>Heading</strong> suffix</h2>",
+            "<a href=x><em><span><ul></a></ul>text<p>after</p>",
+            "<table><br> more <i> more </a></td></table><p>after</p>",
+            "<p>before</p><table>text<select></select><tr><b> more </b></table>"
+    })
+    void testMisnestedMarkupMatchesStringConversion(String html) throws IOException {
+        assertEquals(converter.convert(html), convertStreaming(html));
+    }
+
+    @Test
+    void testEmptyInput() throws IOException {
+        assertEquals("", convertStreaming(""));
+        assertEquals("", convertStreaming("  \n "));
+        assertEquals("\n", convertStreaming("<p></p>"));
+    }
+
+    @Test
+    void testCodeBlockSplitAcrossReads() throws IOException {
+        String html = "<p>Intro</p>\n\n```html\n<b>raw</b>\n```\n\n<p>Outro</p>";
+        String expected = converter.convert(html);
+
+        // Hand out one character per read to split fences at every position
+        Reader slowReader = new StringReader(html) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 1));
+            }
+        };
+        StringWriter out = new StringWriter();
+        converter.convert(slowReader, out);
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    void testInputStreamOutputStream() throws IOException {
+        String html = "<h1>标题</h1><p>Text with <strong>bold</strong></p>";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.convert(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), out,
+                StandardCharsets.UTF_8);
+        assertEquals(converter.convert(html), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWritesBeforeInputIsExhausted() throws IOException {
+        int blocks = 20_000;
+        int[] blocksRead = {0};
+        int[] blocksReadAtFirstWrite = {-1};
+
+        // Generates <p>Paragraph N</p> blocks on demand
+        Reader generator = new Reader() {
+            private String current = "";
+            private int pos = 0;
+
+            @Override
+            public int read(char[] cbuf, int off, int len) {
+                if (pos == current.length()) {
+                    if (blocksRead[0] == blocks) {
+                        return -1;
+                    }
+                    current = "<p>Paragraph " + blocksRead[0]++ + "</p>\n";
+                    pos = 0;
+                }
+                int n = Math.min(len, current.length() - pos);
+                current.getChars(pos, pos + n, cbuf, off);
+                pos += n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        StringBuilder output = new StringBuilder();
+        Writer out = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                if (blocksReadAtFirstWrite[0] < 0) {
+                    blocksReadAtFirstWrite[0] = blocksRead[0];
+                }
+                output.append(cbuf, off, len);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        converter.convert(generator, out);
+
+        assertTrue(blocksReadAtFirstWrite[0] < blocks / 2,
+                "Output should start before the input ends, started after " + blocksReadAtFirstWrite[0]);
+        assertTrue(output.toString().startsWith("Paragraph 0\n\nParagraph 1\n\n"));
+        assertTrue(output.toString().endsWith("Paragraph " + (blocks - 1) + "\n"));
+    }
+}
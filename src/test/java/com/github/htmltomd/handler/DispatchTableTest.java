@@ -0,0 +1,46 @@
+package com.github.htmltomd.handler;
+
+import com.github.htmltomd.ConverterConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for DispatchTable.
+ */
+class DispatchTableTest {
+
+    private final ElementHandler defaultHandler = (element, context) -> "default";
+    private final ElementHandler customHandler = (element, context) -> "custom";
+
+    @Test
+    void testResolvesActionsWithPrecedence() {
+        ConverterConfig config = ConverterConfig.builder()
+                .addCustomHandler("B", customHandler)
+                .addCustomHandler("sup", customHandler)
+                .removeTag("SCRIPT")
+                .removeTag("sup")
+                .preserveTag("sup")
+                .build();
+        DispatchTable table = DispatchTable.compile(config, Map.of("b", defaultHandler, "p", defaultHandler));
+
+        assertEquals(DispatchTable.Action.HANDLE, table.lookup("p").getAction());
+        assertSame(defaultHandler, table.lookup("p").getHandler());
+        // Custom handlers override defaults
+        assertSame(customHandler, table.lookup("b").getHandler());
+        assertEquals(DispatchTable.Action.REMOVE, table.lookup("script").getAction());
+        // Preserving wins over removing and handling
+        assertEquals(DispatchTable.Action.PRESERVE, table.lookup("sup").getAction());
+        assertNull(table.lookup("sup").getHandler());
+        assertEquals(DispatchTable.Action.PASSTHROUGH, table.lookup("div").getAction());
+    }
+
+    @Test
+    void testCacheableEntries() {
+        DispatchTable table = DispatchTable.compile(ConverterConfig.defaultConfig(), Map.of("x", defaultHandler));
+        assertFalse(table.lookup("x").isCacheable());
+        assertTrue(table.lookup("div").isCacheable());
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.htmltomd.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for InlineStyle.
+ */
+class InlineStyleTest {
+
+    @Test
+    void testParsesDeclarations() {
+        InlineStyle style = InlineStyle.parse(" Font-Weight : BOLD;font-style:italic ; color: red ;;");
+
+        assertEquals("bold", style.get("font-weight"));
+        assertEquals("italic", style.get("font-style"));
+        assertEquals("red", style.get("color"));
+        assertNull(style.get("display"));
+        assertTrue(style.isBold());
+        assertTrue(style.isItalic());
+        assertFalse(style.isStrikethrough());
+        assertEquals("font-weight: bold; font-style: italic; color: red;", style.toString());
+    }
+
+    @Test
+    void testLastDeclarationWins() {
+        InlineStyle style = InlineStyle.parse("font-weight: bold; font-weight: normal !important");
+
+        assertEquals("normal", style.get("font-weight"));
+        assertFalse(style.isBold());
+        assertTrue(InlineStyle.parse("font-weight: 700 ! IMPORTANT").isBold());
+    }
+
+    @Test
+    void testQuotesAndParentheses() {
+        InlineStyle style = InlineStyle.parse(
+                "font-family: 'A;B', Courier; background: url(data:image/png;base64,AA==); display: none");
+
+        assertEquals("'a;b', courier", style.get("font-family"));
+        assertEquals("url(data:image/png;base64,aa==)", style.get("background"));
+        assertTrue(style.isMonospace());
+        assertTrue(style.isHidden());
+    }
+
+    @Test
+    void testEmptyAndMalformed() {
+        assertSame(InlineStyle.EMPTY, InlineStyle.parse(null));
+        assertSame(InlineStyle.EMPTY, InlineStyle.parse(""));
+        assertSame(InlineStyle.EMPTY, InlineStyle.parse("bold; : red; color:"));
+        assertTrue(InlineStyle.EMPTY.isEmpty());
+        assertFalse(InlineStyle.EMPTY.isHidden());
+    }
+
+    @Test
+    void testParsedStylesAreShared() {
+        String style = "text-decoration: underline LINE-THROUGH";
+        assertSame(InlineStyle.parse(style), InlineStyle.parse(new String(style.toCharArray())));
+        assertTrue(InlineStyle.parse(style).isStrikethrough());
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.htmltomd.handler;
+
+import com.github.htmltomd.ConverterConfig;
+import com.github.htmltomd.HtmlToMarkdownConverter;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the iterative tree walk and TraversalHandler.
+ */
+class TraversalHandlerTest {
+
+    private static String nested(String open, String close, int depth) {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            html.append(open);
+        }
+        html.append("deep");
+        for (int i = 0; i < depth; i++) {
+            html.append(close);
+        }
+        return html.toString();
+    }
+
+    /**
+     * Converts on a thread with a small stack, as virtual threads may have.
+     */
+    private static String convertOnSmallStack(HtmlToMarkdownConverter converter, String html)
+            throws InterruptedException {
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(converter.convert(html));
+            } catch (Throwable t) {
+                result.set(t);
+            }
+        }, "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+        if (result.get() instanceof Throwable t) {
+            fail(t);
+        }
+        return (String) result.get();
+    }
+
+    @Test
+    void testDeepNestingDoesNotOverflowStack() throws InterruptedException {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+
+        assertEquals("deep\n", convertOnSmallStack(converter, nested("<div>", "</div>", 50000)));
+        assertEquals("deep\n", convertOnSmallStack(converter, nested("<span>", "</span>", 50000)));
+        assertEquals("**deep**\n", convertOnSmallStack(converter, nested("<b>", "</b>", 50000)));
+        assertEquals("*deep*\n", convertOnSmallStack(converter, nested("<div><i>", "</i></div>", 20000)));
+        String quoted = convertOnSmallStack(converter, nested("<blockquote>", "</blockquote>", 2000));
+        assertTrue(quoted.startsWith("> > > "));
+        assertTrue(quoted.trim().endsWith("deep"));
+    }
+
+    @Test
+    void testDeeplyNestedTablesDoNotOverflowStack() throws InterruptedException {
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter();
+
+        // Tables render their own cells, so nesting beyond a fixed depth is
+        // flattened to text
+        String tables = convertOnSmallStack(converter, nested("<table><tr><td>", "</td></tr></table>", 3000));
+        assertTrue(tables.startsWith("| | | "), tables);
+        assertTrue(tables.contains("| deep |"), tables);
+        // Each of ten nested tables is still written with its separator row
+        String shallow = converter.convert(nested("<table><tr><td>", "</td></tr></table>", 10));
+        assertEquals(10, shallow.split("\\|-------\\|", -1).length - 1, shallow);
+    }
+
+    @Test
+    void testCustomTraversalHandler() {
+        TraversalHandler mark = new TraversalHandler() {
+            @Override
+            public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+                out.append("==");
+                return !element.hasAttr("data-skip");
+            }
+
+            @Override
+            public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
+                out.append("==");
+            }
+        };
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().addCustomHandler("mark", mark).build());
+
+        assertEquals("A ==**marked**== word ====\n",
+                converter.convert("<p>A <mark><b>marked</b></mark> word <mark data-skip>hidden</mark></p>"));
+        // Rendering the handler directly enters, renders the children and exits
+        assertEquals("==x==", mark.handle(
+                org.jsoup.Jsoup.parse("<mark><b>x</b></mark>").selectFirst("mark"),
+                new HandlerContext(ConverterConfig.defaultConfig(), java.util.Map.of())));
+    }
+
+    @Test
+    void testTextCallback() {
+        TraversalHandler shout = new TraversalHandler() {
+            @Override
+            public boolean onEnter(Element element, HandlerContext context, MarkdownWriter out) {
+                return true;
+            }
+
+            @Override
+            public void onExit(Element element, HandlerContext context, MarkdownWriter out, int start) {
+                out.trim(start);
+            }
+
+            @Override
+            public void onText(Element element, TextNode text, HandlerContext context, MarkdownWriter out) {
+                // Only the element's own text, not the text of child elements
+                context.renderText(new TextNode(text.getWholeText().toUpperCase()), out);
+            }
+        };
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().addCustomHandler("x-shout", shout).build());
+
+        assertEquals("Say HELLO *world* AGAIN!\n",
+                converter.convert("<p>Say <x-shout> hello  <i>world</i> again</x-shout>!</p>"));
+    }
+
+    @Test
+    void testLegacyHandlersInsideTraversal() {
+        ElementHandler upper = (element, context) -> context.processChildren(element).toUpperCase();
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().addCustomHandler("kbd", upper).build());
+
+        assertEquals("Press **CTRL *C***\n", converter.convert("<p>Press <b><kbd>ctrl <i>c</i></kbd></b></p>"));
+        assertEquals("**DEEP**\n", converter.convert(nested("<b><kbd>", "</kbd></b>", 100)));
+    }
+
+    @Test
+    void testContextIsUsableAfterHandlerFails() {
+        ElementHandler failing = (element, context) -> {
+            throw new IllegalStateException("broken");
+        };
+        HtmlToMarkdownConverter converter = new HtmlToMarkdownConverter(
+                ConverterConfig.builder().addCustomHandler("x-broken", failing).build());
+
+        assertThrows(IllegalStateException.class,
+                () -> converter.convert("<blockquote><p><b>Text <x-broken>x</x-broken></b></p></blockquote>"));
+        assertEquals("> **Text**\n", converter.convert("<blockquote><p><b>Text</b></p></blockquote>"));
+    }
+}
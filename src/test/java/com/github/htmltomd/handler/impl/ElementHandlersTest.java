@@ -3,6 +3,7 @@ package com.github.htmltomd.handler.impl;
 import com.github.htmltomd.ConverterConfig;
 import com.github.htmltomd.handler.ElementHandler;
 import com.github.htmltomd.handler.HandlerContext;
+import com.github.htmltomd.handler.MarkdownWriter;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +37,7 @@ class ElementHandlersTest {
         handlers.put("pre", new CodeHandler());
         handlers.put("ul", new ListHandler());
         handlers.put("ol", new ListHandler());
+        handlers.put("li", new ListHandler());
         handlers.put("blockquote", new BlockquoteHandler());
         handlers.put("table", new TableHandler());
         handlers.put("hr", new HorizontalRuleHandler());
@@ -165,6 +167,35 @@ class ElementHandlersTest {
         assertTrue(result.contains("> Quote"));
     }
 
+    @Test
+    void testNestedLinePrefixes() {
+        Element thread = Jsoup.parse("<blockquote><p>Hi</p><ol><li>One<ul><li>Nested</li></ul></li>"
+                + "<li>Two</li></ol><blockquote><p>Earlier</p></blockquote></blockquote>").body().child(0);
+        MarkdownWriter out = new MarkdownWriter();
+        context.renderElement(thread, out);
+        assertEquals("> Hi\n> \n> \n> 1. One\n> - Nested\n> 2. Two\n> \n> > Earlier\n\n", out.toString());
+
+        Element list = Jsoup.parse("<ul><li>One<ul><li>Nested<blockquote><p>a</p><p>b</p></blockquote></li></ul></li>"
+                + "<li>Two</li></ul>").body().child(0);
+        out = new MarkdownWriter();
+        context.renderElement(list, out);
+        assertEquals("\n- One\n    - Nested> a\n      > \n      > b\n- Two\n\n", out.toString());
+    }
+
+    @Test
+    void testDeeplyNestedBlockquotes() {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            html.append("<blockquote><p>Reply ").append(i).append("</p>");
+        }
+        html.append("</blockquote>".repeat(200));
+
+        Element thread = Jsoup.parse(html.toString()).body().child(0);
+        String result = context.processElement(thread);
+        assertTrue(result.startsWith("> Reply 0\n> \n> > Reply 1\n> >\n> > > Reply 2\n"));
+        assertTrue(result.contains("\n" + "> ".repeat(200) + "Reply 199\n"));
+    }
+
     @Test
     void testHorizontalRuleHandler() {
         HorizontalRuleHandler handler = new HorizontalRuleHandler();
@@ -180,4 +211,29 @@ class ElementHandlersTest {
         Element br = Jsoup.parse("<br>").body().child(0);
         assertEquals("  \n", handler.handle(br, context));
     }
+
+    @Test
+    void testRenderAppendsToSharedBuffer() {
+        MarkdownWriter out = new MarkdownWriter();
+        out.append("Before ");
+
+        Element strong = Jsoup.parse("<strong> Bold <em>and italic</em> </strong>").body().child(0);
+        new EmphasisHandler().render(strong, context, out);
+        assertEquals("Before **Bold *and italic***", out.toString());
+
+        Element link = Jsoup.parse("<a href=\"u\" title=\"T\">link</a>").body().child(0);
+        new LinkHandler().render(link, context, out.append(' '));
+        assertEquals("Before **Bold *and italic*** [link](u \"T\")", out.toString());
+    }
+
+    @Test
+    void testLegacyHandlerRendersThroughAdapter() {
+        ElementHandler legacy = (element, ctx) -> "==" + ctx.processChildren(element) + "==";
+
+        Element mark = Jsoup.parse("<mark>high<strong>light</strong></mark>").body().child(0);
+        MarkdownWriter out = new MarkdownWriter();
+        out.append("> ");
+        legacy.render(mark, context, out);
+        assertEquals("> ==high**light**==", out.toString());
+    }
 }
@@ -18,12 +18,63 @@ class MarkdownUtilsTest {
         assertEquals("\\|table\\|", MarkdownUtils.escape("|table|"));
     }
 
+    @Test
+    void testEscapeWithoutSpecialCharactersReturnsSameInstance() {
+        String text = "nothing to escape here";
+        assertSame(text, MarkdownUtils.escape(text));
+        assertNull(MarkdownUtils.escape(null));
+        assertEquals("", MarkdownUtils.escape(""));
+    }
+
+    @Test
+    void testEscapeModes() {
+        String text = "a_b [c] (d) e|f 1. #g";
+        assertEquals("a\\_b \\[c\\] \\(d\\) e\\|f 1\\. \\#g", MarkdownUtils.escape(text));
+        assertEquals("a\\_b \\[c\\] (d) e|f 1. #g",
+                MarkdownUtils.escape(text, MarkdownUtils.EscapeMode.LINK_TEXT));
+        assertEquals("a_b [c] \\(d\\) e|f 1. #g", MarkdownUtils.escape(text, MarkdownUtils.EscapeMode.URL));
+        assertEquals("a_b [c] (d) e\\|f 1. #g",
+                MarkdownUtils.escape(text, MarkdownUtils.EscapeMode.TABLE_CELL));
+        assertEquals("\\\\", MarkdownUtils.escape("\\", MarkdownUtils.EscapeMode.TABLE_CELL));
+    }
+
+    @Test
+    void testEscapeIntoAppendable() {
+        StringBuilder out = new StringBuilder("> ");
+        MarkdownUtils.escape("**bold** text", out);
+        assertEquals("> \\*\\*bold\\*\\* text", out.toString());
+
+        out.setLength(0);
+        MarkdownUtils.escape(new StringBuilder("x|y"), MarkdownUtils.EscapeMode.TABLE_CELL, out);
+        assertEquals("x\\|y", out.toString());
+    }
+
     @Test
     void testNormalizeWhitespace() {
         assertEquals("single space", MarkdownUtils.normalizeWhitespace("single   space"));
         assertEquals("trim end", MarkdownUtils.normalizeWhitespace("  trim end  "));
         assertEquals("", MarkdownUtils.normalizeWhitespace(null));
         assertEquals("", MarkdownUtils.normalizeWhitespace("   "));
+        assertEquals("tabs and newlines", MarkdownUtils.normalizeWhitespace("tabs\tand\n\nnewlines"));
+        assertEquals("no break spaces", MarkdownUtils.normalizeWhitespace("\u00A0no\u00A0break\u3000spaces\u2003"));
+    }
+
+    @Test
+    void testNormalizeWhitespaceReturnsSameInstance() {
+        String text = "already normalized text";
+        assertSame(text, MarkdownUtils.normalizeWhitespace(text));
+        String done = "text\n\n";
+        assertSame(done, MarkdownUtils.ensureTrailingNewlines(done, 2));
+    }
+
+    @Test
+    void testIsWhitespace() {
+        for (char c : new char[] { ' ', '\t', '\n', '\r', '\f', '\u000B', '\u00A0', '\u2003', '\u3000' }) {
+            assertTrue(MarkdownUtils.isWhitespace(c), "U+" + Integer.toHexString(c));
+        }
+        for (char c : new char[] { 'a', '_', '\u0000', '\u200B', '\u4E2D' }) {
+            assertFalse(MarkdownUtils.isWhitespace(c), "U+" + Integer.toHexString(c));
+        }
     }
 
     @Test
@@ -32,6 +83,7 @@ class MarkdownUtilsTest {
         assertEquals("text\n\n", MarkdownUtils.ensureTrailingNewlines("text\n", 2));
         assertEquals("text\n\n", MarkdownUtils.ensureTrailingNewlines("text\n\n\n", 2));
         assertEquals("\n\n", MarkdownUtils.ensureTrailingNewlines(null, 2));
+        assertEquals("text", MarkdownUtils.ensureTrailingNewlines("text\n", 0));
     }
 
     @Test